@@ -0,0 +1,25 @@
+package bcc.javaJostle;
+
+import java.util.ArrayList;
+
+/**
+ * Shared setup for the benchmarks: seeded, headless games whose thinks run on the
+ * benchmark thread so nothing times out.
+ */
+final class BenchmarkGames {
+    static final long SEED = 20240601L;
+
+    private BenchmarkGames() {
+    }
+
+    static Game newGame(String robotName, int robotCount, String mapName) {
+        Utilities.setHeadless(true);
+        ArrayList<String> robotNames = new ArrayList<>();
+        for (int i = 0; i < robotCount; i++) {
+            robotNames.add(robotName);
+        }
+        Game game = new Game(robotNames, mapName, Integer.MAX_VALUE, SEED);
+        game.setThinkStrategy(ThinkStrategy.DIRECT);
+        return game;
+    }
+}
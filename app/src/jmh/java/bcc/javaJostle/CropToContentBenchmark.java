@@ -0,0 +1,47 @@
+package bcc.javaJostle;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Utilities.cropToContent() on the decoded game images. Cropping has nothing to do
+ * with maps, so this one is parameterized by image instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CropToContentBenchmark {
+    @Param({ "wall.png", "randomBot.png", "rock.png", "healthPack.png" })
+    public String imageName;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = CropToContentBenchmark.class.getResourceAsStream("/images/" + imageName)) {
+            image = ImageIO.read(in);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage crop() {
+        return Utilities.cropToContent(image);
+    }
+}
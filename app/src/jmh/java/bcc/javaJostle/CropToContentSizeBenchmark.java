@@ -0,0 +1,66 @@
+package bcc.javaJostle;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Utilities.cropToContent() from tile-sized images up to the large PNGs students
+ * sometimes submit for their robots. Each image is a filled circle with a
+ * transparent border, in the layouts ImageIO usually decodes to plus an indexed one
+ * that takes the getRGB() path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CropToContentSizeBenchmark {
+    @Param({ "32", "256", "1024", "2048" })
+    public int size;
+
+    @Param({ "INT_ARGB", "4BYTE_ABGR", "BYTE_INDEXED" })
+    public String layout;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        int type;
+        switch (layout) {
+            case "INT_ARGB":
+                type = BufferedImage.TYPE_INT_ARGB;
+                break;
+            case "4BYTE_ABGR":
+                type = BufferedImage.TYPE_4BYTE_ABGR;
+                break;
+            default:
+                type = BufferedImage.TYPE_BYTE_INDEXED;
+        }
+        image = new BufferedImage(size, size, type);
+        Graphics2D g = image.createGraphics();
+        g.setBackground(new Color(0, 0, 0, 0));
+        g.clearRect(0, 0, size, size);
+        g.setColor(Color.ORANGE);
+        g.fillOval(size / 8, size / 8, size * 3 / 4, size * 3 / 4);
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage crop() {
+        return Utilities.cropToContent(image);
+    }
+}
@@ -0,0 +1,49 @@
+package bcc.javaJostle;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A whole Game.step() with Rando robots, which move and shoot all game long.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameStepBenchmark {
+    @Param({ "Standard", "Maze", "Giant" })
+    public String mapName;
+
+    @Param({ "2", "8", "16" })
+    public int robotCount;
+
+    private Game game;
+
+    @Setup(Level.Iteration)
+    public void newGame() {
+        game = BenchmarkGames.newGame("Rando", robotCount, mapName);
+    }
+
+    @Benchmark
+    public int step() {
+        if (game.isGameOver()) {
+            // Rare; keeps the robot count from dropping to one for the rest of the iteration
+            newGame();
+        }
+        game.step();
+        return game.getDuration();
+    }
+}
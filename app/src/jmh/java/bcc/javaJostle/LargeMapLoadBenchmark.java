@@ -0,0 +1,72 @@
+package bcc.javaJostle;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading a generated square arena from disk, as text and as a binary .map, at the
+ * sizes procedural tournament maps come in.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LargeMapLoadBenchmark {
+    @Param({ "100", "1000" })
+    public int size;
+
+    @Param({ ".txt", ".map" })
+    public String extension;
+
+    private Path directory;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jostle-maps");
+        Path text = directory.resolve("Arena.txt");
+        Random random = new Random(1);
+        StringBuilder builder = new StringBuilder();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                boolean edge = r == 0 || c == 0 || r == size - 1 || c == size - 1;
+                builder.append(c > 0 ? " " : "").append(edge ? 'W' : "WGGGGM".charAt(random.nextInt(6)));
+            }
+            builder.append('\n');
+        }
+        Files.write(text, builder.toString().getBytes());
+        file = directory.resolve("Arena" + extension);
+        if (!file.equals(text)) {
+            Map.read(text).write(file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(directory.resolve("Arena.map"));
+        Files.deleteIfExists(directory.resolve("Arena.txt"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Map load() throws IOException {
+        return Map.read(file);
+    }
+}
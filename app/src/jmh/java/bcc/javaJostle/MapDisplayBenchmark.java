@@ -0,0 +1,58 @@
+package bcc.javaJostle;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MapRenderer.display() into an offscreen image the size of the game panel, at a
+ * fixed zoom, so after the first frame every call draws from the chunk cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapDisplayBenchmark {
+    @Param({ "Standard", "Giant" })
+    public String mapName;
+
+    @Param({ "0.2", "1.0", "3.375" })
+    public double zoomFactor;
+
+    private MapRenderer renderer;
+    private BufferedImage screen;
+    private Graphics2D g;
+
+    @Setup
+    public void setUp() {
+        Utilities.loadImages();
+        renderer = new MapRenderer(new Map(mapName));
+        screen = new BufferedImage(Utilities.SCREEN_WIDTH, Utilities.SCREEN_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = screen.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage display() {
+        renderer.display(g, screen.getWidth(), screen.getHeight(), 0, 0, zoomFactor);
+        return screen;
+    }
+}
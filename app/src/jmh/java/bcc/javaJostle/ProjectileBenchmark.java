@@ -0,0 +1,81 @@
+package bcc.javaJostle;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One tick of projectile movement for a large number of projectiles. The projectiles
+ * do no damage so the robots stay alive; each one that dies is replaced by a new one
+ * so the load stays constant. useSpatialIndex compares the robot grid against
+ * scanning every robot, and continuous compares ray casts against sub-steps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectileBenchmark {
+    @Param({ "Standard", "Maze", "Giant" })
+    public String mapName;
+
+    @Param({ "100", "1000" })
+    public int projectileCount;
+
+    @Param({ "16" })
+    public int robotCount;
+
+    @Param({ "true", "false" })
+    public boolean useSpatialIndex;
+
+    @Param({ "false", "true" })
+    public boolean continuous;
+
+    private Game game;
+    private ProjectileStore store;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.newGame("Rock", robotCount, mapName);
+        game.setUseSpatialIndex(useSpatialIndex);
+        game.setContinuousProjectiles(continuous);
+        game.step(); // Rocks never move, so this builds the robot index once for the whole run
+        store = game.getProjectileStore();
+        random = new Random(BenchmarkGames.SEED);
+        for (int i = 0; i < projectileCount; i++) {
+            spawnProjectile();
+        }
+    }
+
+    // A harmless projectile fired from the middle of a random robot towards a random point on the map
+    private void spawnProjectile() {
+        Robot owner = game.getRobots().get(random.nextInt(game.getRobots().size()));
+        Map map = game.getMap();
+        int targetX = random.nextInt(map.width() * Utilities.TILE_SIZE);
+        int targetY = random.nextInt(map.height() * Utilities.TILE_SIZE);
+        game.spawnProjectile(owner, owner.getX() + Utilities.ROBOT_SIZE / 2, owner.getY() + Utilities.ROBOT_SIZE / 2,
+                targetX, targetY, 10, 0);
+    }
+
+    @Benchmark
+    public int updateAll() {
+        store.updateAll();
+        int removed = store.removeDead();
+        for (int i = 0; i < removed; i++) {
+            spawnProjectile();
+        }
+        return store.size();
+    }
+}
@@ -0,0 +1,179 @@
+package bcc.javaJostle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One tick of sub-step projectile movement, as ProjectileBenchmark does, against
+ * the update as it was before each projectile's direction was worked out once when
+ * fired. With perTickTrig the benchmark runs its own copy of that older update:
+ * cos and sin of the angle every tick, and all four corner tiles looked up on every
+ * sub-step. Both sides fire the same projectiles from the same seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectileDirectionBenchmark {
+    private static final int SUB_STEPS = 5;
+
+    @Param({ "Standard", "Maze", "Giant" })
+    public String mapName;
+
+    @Param({ "100", "1000" })
+    public int projectileCount;
+
+    @Param({ "false", "true" })
+    public boolean perTickTrig;
+
+    private Game game;
+    private ProjectileStore store;
+    private Random random;
+
+    // The projectiles for perTickTrig, kept the way the store kept them before
+    private int count;
+    private int[] owner;
+    private double[] x;
+    private double[] y;
+    private double[] angle;
+    private int[] speed;
+    private boolean[] alive;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.newGame("Rock", 16, mapName);
+        game.step(); // Rocks never move, so this builds the robot index once for the whole run
+        store = game.getProjectileStore();
+        random = new Random(BenchmarkGames.SEED);
+        owner = new int[projectileCount];
+        x = new double[projectileCount];
+        y = new double[projectileCount];
+        angle = new double[projectileCount];
+        speed = new int[projectileCount];
+        alive = new boolean[projectileCount];
+        for (int i = 0; i < projectileCount; i++) {
+            spawnProjectile();
+        }
+    }
+
+    // A harmless projectile fired from the middle of a random robot towards a random point on the map
+    private void spawnProjectile() {
+        int ownerIndex = random.nextInt(game.getRobots().size());
+        Robot robot = game.getRobots().get(ownerIndex);
+        Map map = game.getMap();
+        int targetX = random.nextInt(map.width() * Utilities.TILE_SIZE);
+        int targetY = random.nextInt(map.height() * Utilities.TILE_SIZE);
+        double startX = robot.getX() + Utilities.ROBOT_SIZE / 2;
+        double startY = robot.getY() + Utilities.ROBOT_SIZE / 2;
+        if (!perTickTrig) {
+            game.spawnProjectile(robot, startX, startY, targetX, targetY, 10, 0);
+            return;
+        }
+        owner[count] = ownerIndex;
+        x[count] = startX;
+        y[count] = startY;
+        angle[count] = Math.atan2(targetY - startY, targetX - startX);
+        speed[count] = 10;
+        alive[count] = true;
+        count++;
+    }
+
+    @Benchmark
+    public int updateAll() {
+        int removed;
+        if (perTickTrig) {
+            Map map = game.getMap();
+            ArrayList<Robot> robots = game.getRobots();
+            SpatialGrid robotGrid = game.getRobotGrid();
+            for (int i = 0; i < count; i++) {
+                updatePerTickTrig(i, map, robots, robotGrid);
+            }
+            removed = removeDead();
+        } else {
+            store.updateAll();
+            removed = store.removeDead();
+        }
+        for (int i = 0; i < removed; i++) {
+            spawnProjectile();
+        }
+        return perTickTrig ? count : store.size();
+    }
+
+    // ProjectileStore.update() before user-022
+    private void updatePerTickTrig(int i, Map map, ArrayList<Robot> robots, SpatialGrid robotGrid) {
+        if (!alive[i]) {
+            return;
+        }
+        double totalDx = speed[i] * Math.cos(angle[i]);
+        double totalDy = speed[i] * Math.sin(angle[i]);
+        double subStepDx = totalDx / SUB_STEPS;
+        double subStepDy = totalDy / SUB_STEPS;
+        boolean pathClear = ProjectileStore.isPathClear(map, x[i], y[i], totalDx, totalDy);
+
+        for (int step = 0; step < SUB_STEPS; step++) {
+            double currentX = x[i] + subStepDx;
+            double currentY = y[i] + subStepDy;
+            if (!pathClear && map != null && !map.isEmpty()) {
+                int left = (int) (currentX / Utilities.TILE_SIZE);
+                int right = (int) ((currentX + Utilities.PROJECTILE_SIZE - 1) / Utilities.TILE_SIZE);
+                int top = (int) (currentY / Utilities.TILE_SIZE);
+                int bottom = (int) ((currentY + Utilities.PROJECTILE_SIZE - 1) / Utilities.TILE_SIZE);
+                if (map.isWallTile(left, top) || map.isWallTile(right, top) || map.isWallTile(left, bottom)
+                        || map.isWallTile(right, bottom)) {
+                    alive[i] = false;
+                    return;
+                }
+            }
+            int candidates = robotGrid.query(currentX, currentY, currentX + Utilities.PROJECTILE_SIZE,
+                    currentY + Utilities.PROJECTILE_SIZE);
+            for (int k = 0; k < candidates; k++) {
+                int robotIndex = robotGrid.result(k);
+                Robot robot = robots.get(robotIndex);
+                if (robot.isAlive() && robotIndex != owner[i] && currentX < robot.getX() + Utilities.ROBOT_SIZE
+                        && currentX + Utilities.PROJECTILE_SIZE > robot.getX()
+                        && currentY < robot.getY() + Utilities.ROBOT_SIZE
+                        && currentY + Utilities.PROJECTILE_SIZE > robot.getY()) {
+                    robot.takeDamage(0);
+                    alive[i] = false;
+                    return;
+                }
+            }
+            x[i] = currentX;
+            y[i] = currentY;
+        }
+    }
+
+    private int removeDead() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (alive[i]) {
+                owner[kept] = owner[i];
+                x[kept] = x[i];
+                y[kept] = y[i];
+                angle[kept] = angle[i];
+                speed[kept] = speed[i];
+                alive[kept] = true;
+                kept++;
+            }
+        }
+        int removed = count - kept;
+        Arrays.fill(alive, kept, count, false);
+        count = kept;
+        return removed;
+    }
+}
@@ -0,0 +1,57 @@
+package bcc.javaJostle;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Robot.step() for a crowd of wandering robots that never shoot, so the time goes
+ * into movement and collision against walls and each other. sweptMovement compares
+ * the one-pass resolver against the pixel-by-pixel loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RobotMovementBenchmark {
+    @Param({ "Standard", "Maze", "Giant" })
+    public String mapName;
+
+    @Param({ "16" })
+    public int robotCount;
+
+    @Param({ "true", "false" })
+    public boolean sweptMovement;
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.newGame("WanderBot", robotCount, mapName);
+        game.setSweptMovement(sweptMovement);
+    }
+
+    @Benchmark
+    public int stepAllRobots() {
+        ArrayList<Robot> robots = game.getRobots();
+        int moved = 0;
+        for (Robot robot : robots) {
+            robot.think(robots, game.getProjectiles(), game.getMap(), game.getPowerUps());
+            robot.step(game);
+            moved += robot.getX() + robot.getY();
+        }
+        return moved;
+    }
+}
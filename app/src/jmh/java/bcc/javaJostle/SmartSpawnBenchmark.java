@@ -0,0 +1,43 @@
+package bcc.javaJostle;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Game.smartSpawn() picking a spot away from the robots already on the map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmartSpawnBenchmark {
+    @Param({ "Standard", "Maze", "Giant" })
+    public String mapName;
+
+    @Param({ "2", "16" })
+    public int robotCount;
+
+    private Game game;
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkGames.newGame("Rock", robotCount, mapName);
+    }
+
+    @Benchmark
+    public int smartSpawn() {
+        return game.smartSpawn();
+    }
+}
@@ -0,0 +1,34 @@
+package bcc.javaJostle;
+
+import java.util.ArrayList;
+
+/**
+ * Benchmark robot that wanders around and never shoots, so movement can be
+ * measured on its own.
+ */
+public class WanderBot extends Robot {
+    private int lastX = 1;
+    private int lastY = 0;
+
+    public WanderBot(int x, int y) {
+        super(x, y, 2, 5, 2, 1, "WanderBot", "randomBot.png", "defaultProjectile.png");
+    }
+
+    public void think(ArrayList<Robot> robots, ArrayList<Projectile> projectiles, Map map, ArrayList<PowerUp> powerups) {
+        int direction = getRandom().nextInt(20); // Mostly keep going the same way
+        if (direction == 0) {
+            xMovement = 1;
+        } else if (direction == 1) {
+            xMovement = -1;
+        } else if (direction == 2) {
+            yMovement = 1;
+        } else if (direction == 3) {
+            yMovement = -1;
+        } else {
+            xMovement = lastX;
+            yMovement = lastY;
+        }
+        lastX = xMovement;
+        lastY = yMovement;
+    }
+}
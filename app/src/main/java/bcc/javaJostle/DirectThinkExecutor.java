@@ -0,0 +1,15 @@
+package bcc.javaJostle;
+
+/**
+ * Runs thinks directly on the calling thread with no time limit. Nothing is
+ * timed out, so results do not depend on machine load. This is meant for tests
+ * and benchmarks with trusted robots, not for running student submissions.
+ */
+public class DirectThinkExecutor implements ThinkExecutor {
+
+    @Override
+    public boolean run(String name, Runnable task, long timeLimitMs, long graceMs) {
+        task.run();
+        return true;
+    }
+}
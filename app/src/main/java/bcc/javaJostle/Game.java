@@ -2,37 +2,68 @@ package bcc.javaJostle;
 
 import javax.swing.JPanel;
 import java.awt.Graphics;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Path;
 import java.awt.Dimension; // For setPreferredSize
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
-import java.awt.Point; // For Point class
+import java.util.concurrent.atomic.AtomicReference;
 
 class Game extends JPanel {
+    private static final int SPAWN_CANDIDATES = 10; // Grass tiles smartSpawn() chooses between
+
     private ArrayList<Robot> robots;
-    private ArrayList<Projectile> projectiles = new ArrayList<>(); // Placeholder
+    private final ProjectileStore projectiles = new ProjectileStore(this);
     private ArrayList<PowerUp> powerUps; // Assuming PowerUp is the class for individual power-ups
     private Map map;
+    private final MapRenderer mapRenderer; // Draws the map for this game's panel
     private int duration = 0;
-    private Random randomGenerator; // Added for smartSpawn
+    private long seed;
+    private Random randomGenerator; // Every random choice the game makes comes from here
     // Fields to store current display parameters
     private int currentWidth, currentHeight, currentCameraX, currentCameraY, currentTileSize;
     private double currentZoomFactor;
     private int maxDuration;
+    private ThinkExecutor thinkExecutor = ThinkStrategy.POOLED.executor();
+    private SpatialGrid robotGrid; // Robots bucketed by tile, rebuilt before projectiles move
+    private SpatialGrid spawnGrid; // Robot and power-up centers, rebuilt for each smartSpawn()
+    private double[] entityCenterX = new double[16]; // By spawnGrid id
+    private double[] entityCenterY = new double[16];
+    private final int[] spawnCandidates = new int[SPAWN_CANDIDATES];
+    private boolean useSpatialIndex = true;
+    private boolean sweptMovement = true;
+    private boolean continuousProjectiles = false;
+    private GameMetrics metrics; // null unless timing was asked for
+    private ReplayRecorder recorder; // null unless the game is being recorded
+    // The last finished tick, for painting from another thread. Only kept up to date when
+    // publishing is on, so headless games don't pay for the copies
+    private final AtomicReference<WorldSnapshot> latestSnapshot = new AtomicReference<>();
+    private volatile boolean publishSnapshots = false;
+    private final BufferedImage[] robotImages; // By robot index, for drawing snapshots
+    private final BufferedImage[] projectileImages;
+    private Sensors sensors; // Made by the first step() and reset at the start of every step after that
 
     public Game(ArrayList<String> robotFileNames, String mapName, int maxDuration) {
+        this(robotFileNames, mapName, maxDuration, new Random().nextLong());
+    }
+
+    // Games created with the same seed, robots and map play out identically, as long
+    // as no robot's think times out (use ThinkStrategy.DIRECT to rule that out)
+    public Game(ArrayList<String> robotFileNames, String mapName, int maxDuration, long seed) {
         this.robots = new ArrayList<>();
         this.powerUps = new ArrayList<>();
         this.maxDuration = maxDuration;
-        randomGenerator = new Random(); // Initialize random generator for smartSpawn
+        this.seed = seed;
+        randomGenerator = new Random(seed);
 
-        map = new Map(mapName);
+        map = MapRegistry.get(mapName).forGame(); // Tiles shared with every other game on this map
+        mapRenderer = new MapRenderer(map);
         // use robotFileNames to create robots
 
         try {
@@ -46,9 +77,7 @@ class Game extends JPanel {
                     continue;
                 }
 
-                int numCols = (this.map.getTiles() != null && this.map.getTiles().length > 0)
-                        ? this.map.getTiles()[0].length
-                        : 0;
+                int numCols = this.map.width();
                 if (numCols == 0) {
                     System.err.println("Map has no columns. Cannot place robot " + className);
                     continue;
@@ -60,6 +89,9 @@ class Game extends JPanel {
                 int robotSpawnY = spawnRow * Utilities.TILE_SIZE;
                 Robot robot = Utilities.createRobot(robotSpawnX, robotSpawnY, className);
                 if (robot != null) {
+                    // Each robot gets its own stream so one robot's rolls don't shift another's
+                    robot.setRandom(new Random(randomGenerator.nextLong()));
+                    robot.setGame(this);
                     robots.add(robot);
                     System.out.println("Added robot: " + className + " at (" + spawnCol + "," + spawnRow + ")");
                 } else {
@@ -73,6 +105,13 @@ class Game extends JPanel {
             e.printStackTrace();
         }
 
+        robotImages = new BufferedImage[robots.size()];
+        projectileImages = new BufferedImage[robots.size()];
+        for (int i = 0; i < robots.size(); i++) {
+            robotImages[i] = robots.get(i).getImage();
+            projectileImages[i] = robots.get(i).getProjectileImage();
+        }
+
         // Set a preferred size for the game panel to help with layout
         setPreferredSize(new Dimension(Utilities.SCREEN_WIDTH, Utilities.SCREEN_HEIGHT));
         setFocusable(true); // Important for receiving keyboard events if needed later
@@ -87,180 +126,148 @@ class Game extends JPanel {
         this.currentZoomFactor = zoomFactor;
     }
 
-    private int smartSpawn() {
-        if (this.map == null || this.map.getTiles() == null || this.map.getTiles().length == 0
-                || this.map.getTiles()[0].length == 0) {
+    int smartSpawn() {
+        if (this.map == null || this.map.isEmpty()) {
             System.err.println("SmartSpawn: Map is not properly initialized.");
             return -1; // Invalid map
         }
-        int numRows = this.map.getTiles().length;
-        int numCols = this.map.getTiles()[0].length;
-
-        List<Point> grassLocations = new ArrayList<>(); // Stores Point(col, row)
-        Set<Point> visitedGrassLocations = new HashSet<>();
-        int samplingAttempts = 0;
-        int maxSamplingAttempts = 100; // Try up to 100 times to find 10 distinct grass spots
-
-        while (grassLocations.size() < 10 && samplingAttempts < maxSamplingAttempts) {
-            int r = randomGenerator.nextInt(numRows);
-            int c = randomGenerator.nextInt(numCols);
-            Point candidatePoint = new Point(c, r); // Point.x is col, Point.y is row
-
-            if (this.map.getTiles()[r][c] == Utilities.GRASS && !visitedGrassLocations.contains(candidatePoint)) {
-                grassLocations.add(candidatePoint);
-                visitedGrassLocations.add(candidatePoint);
-            }
-            samplingAttempts++;
+        int grassCount = this.map.grassTileCount();
+        if (grassCount == 0) {
+            System.err.println("SmartSpawn: No grass tiles found on the entire map.");
+            return -1; // No grass tiles anywhere
         }
 
-        if (grassLocations.isEmpty()) {
-            System.err.println("SmartSpawn: Could not find any grass tiles after " + maxSamplingAttempts
-                    + " random attempts. Scanning map...");
-            for (int r = 0; r < numRows; r++) {
-                for (int c = 0; c < numCols; c++) {
-                    if (this.map.getTiles()[r][c] == Utilities.GRASS) {
-                        System.out.println("SmartSpawn: Found fallback grass tile at (" + c + "," + r + ")");
-                        return r * numCols + c; // Return first found grass tile
+        // Up to SPAWN_CANDIDATES distinct grass tiles, picked straight from the map's grass list
+        int candidates = Math.min(SPAWN_CANDIDATES, grassCount);
+        for (int i = 0; i < candidates; i++) {
+            int tile;
+            if (grassCount <= SPAWN_CANDIDATES) {
+                tile = this.map.grassTile(i); // Few enough to try them all
+            } else {
+                boolean repeat;
+                do {
+                    tile = this.map.grassTile(randomGenerator.nextInt(grassCount));
+                    repeat = false;
+                    for (int j = 0; j < i && !repeat; j++) {
+                        repeat = spawnCandidates[j] == tile;
                     }
-                }
+                } while (repeat);
             }
-            System.err.println("SmartSpawn: No grass tiles found on the entire map.");
-            return -1; // No grass tiles anywhere
+            spawnCandidates[i] = tile;
         }
 
-        // If no robots or powerups, return the first valid grass point found
-        if (this.robots.isEmpty() && this.powerUps.isEmpty()) {
-            Point firstGrass = grassLocations.get(0);
-            return firstGrass.y * numCols + firstGrass.x; // row * numCols + col
+        if (buildSpawnGrid() == 0) {
+            return spawnCandidates[0]; // Nothing to keep away from
         }
 
-        Point bestSpawnTile = null;
-        // Initialize to a very small number, as we are looking for the maximum of these
-        // minimum distances
+        // Take the candidate furthest from the nearest robot or power-up
+        int numCols = this.map.width();
+        int bestSpawnTile = spawnCandidates[0];
         double largestMinDistanceToNearestEntity = -1.0;
-
-        for (Point currentTile : grassLocations) {
-            double tileCenterX = currentTile.x * Utilities.TILE_SIZE + Utilities.TILE_SIZE / 2.0;
-            double tileCenterY = currentTile.y * Utilities.TILE_SIZE + Utilities.TILE_SIZE / 2.0;
-            double currentPointMinDistanceToAnEntity = Double.MAX_VALUE;
-
-            // Check distance to robots
-            if (!this.robots.isEmpty()) {
-                for (Robot robot : this.robots) {
-                    if (!robot.isAlive())
-                        continue;
-                    double robotCenterX = robot.getX() + Utilities.ROBOT_SIZE / 2.0;
-                    double robotCenterY = robot.getY() + Utilities.ROBOT_SIZE / 2.0;
-                    double dist = Math.hypot(tileCenterX - robotCenterX, tileCenterY - robotCenterY);
-                    currentPointMinDistanceToAnEntity = Math.min(currentPointMinDistanceToAnEntity, dist);
-                }
-            } else if (this.powerUps.isEmpty()) {
-                // No robots and no powerups, this case is handled earlier, but as a safeguard:
-                currentPointMinDistanceToAnEntity = Double.MAX_VALUE; // Effectively makes this point desirable if it's
-                                                                      // the only one
-            }
-
-            // Check distance to powerUps
-            if (!this.powerUps.isEmpty()) {
-                for (PowerUp powerUp : this.powerUps) {
-                    // Assuming PowerUp x,y are tile coordinates
-                    double powerUpCenterX = powerUp.getX() * Utilities.TILE_SIZE + Utilities.POWER_UP_SIZE / 2.0;
-                    double powerUpCenterY = powerUp.getY() * Utilities.TILE_SIZE + Utilities.POWER_UP_SIZE / 2.0;
-                    double dist = Math.hypot(tileCenterX - powerUpCenterX, tileCenterY - powerUpCenterY);
-                    currentPointMinDistanceToAnEntity = Math.min(currentPointMinDistanceToAnEntity, dist);
-                }
-            } else if (this.robots.isEmpty()) {
-                // No powerups and no robots, this case is handled earlier, but as a safeguard:
-                currentPointMinDistanceToAnEntity = Double.MAX_VALUE;
+        for (int i = 0; i < candidates; i++) {
+            int tile = spawnCandidates[i];
+            double tileCenterX = tile % numCols * Utilities.TILE_SIZE + Utilities.TILE_SIZE / 2.0;
+            double tileCenterY = tile / numCols * Utilities.TILE_SIZE + Utilities.TILE_SIZE / 2.0;
+            double distance = nearestEntityDistance(tileCenterX, tileCenterY);
+            if (distance > largestMinDistanceToNearestEntity) {
+                largestMinDistanceToNearestEntity = distance;
+                bestSpawnTile = tile;
             }
+        }
+        return bestSpawnTile; // row * numCols + col
+    }
 
-            // If there are no entities at all, currentPointMinDistanceToAnEntity will
-            // remain Double.MAX_VALUE.
-            // In this scenario, any grass tile is equally good. The first one processed
-            // will be chosen.
-
-            if (currentPointMinDistanceToAnEntity > largestMinDistanceToNearestEntity) {
-                largestMinDistanceToNearestEntity = currentPointMinDistanceToAnEntity;
-                bestSpawnTile = currentTile;
+    // Indexes the centers of the live robots and the power-ups; returns how many there are
+    private int buildSpawnGrid() {
+        if (spawnGrid == null) {
+            spawnGrid = new SpatialGrid(map.width(), map.height());
+        }
+        int needed = robots.size() + powerUps.size();
+        if (entityCenterX.length < needed) {
+            entityCenterX = new double[needed];
+            entityCenterY = new double[needed];
+        }
+        spawnGrid.clear();
+        int count = 0;
+        for (Robot robot : robots) {
+            if (robot.isAlive()) {
+                entityCenterX[count] = robot.getX() + Utilities.ROBOT_SIZE / 2.0;
+                entityCenterY[count] = robot.getY() + Utilities.ROBOT_SIZE / 2.0;
+                spawnGrid.insert(count, entityCenterX[count], entityCenterY[count], entityCenterX[count],
+                        entityCenterY[count]);
+                count++;
             }
         }
+        for (PowerUp powerUp : powerUps) {
+            entityCenterX[count] = powerUp.getX() + Utilities.POWER_UP_SIZE / 2.0;
+            entityCenterY[count] = powerUp.getY() + Utilities.POWER_UP_SIZE / 2.0;
+            spawnGrid.insert(count, entityCenterX[count], entityCenterY[count], entityCenterX[count],
+                    entityCenterY[count]);
+            count++;
+        }
+        spawnGrid.build();
+        return count;
+    }
 
-        if (bestSpawnTile != null) {
-            return bestSpawnTile.y * numCols + bestSpawnTile.x; // row * numCols + col
-        } else {
-            // Fallback if something went wrong, though grassLocations should not be empty
-            // here
-            Point fallbackGrass = grassLocations.get(0);
-            return fallbackGrass.y * numCols + fallbackGrass.x;
+    /**
+     * Distance from (x, y) to the closest center in the spawn grid. Searches a square
+     * that doubles in size until it holds a center no further away than its half-width;
+     * anything closer would have had to be inside the square too.
+     */
+    private double nearestEntityDistance(double x, double y) {
+        double mapSize = Math.max(map.width(), map.height()) * (double) Utilities.TILE_SIZE;
+        for (double radius = Utilities.TILE_SIZE;; radius *= 2) {
+            int found = spawnGrid.query(x - radius, y - radius, x + radius, y + radius);
+            double nearest = Double.MAX_VALUE;
+            for (int k = 0; k < found; k++) {
+                int id = spawnGrid.result(k);
+                nearest = Math.min(nearest, Math.hypot(x - entityCenterX[id], y - entityCenterY[id]));
+            }
+            if (nearest <= radius || radius >= mapSize) {
+                return nearest;
+            }
         }
     }
 
+    // With publishing on this paints the latest snapshot, never the lists step() is changing.
+    // Otherwise the game is stepped on this thread and can be copied directly
     @Override
     protected void paintComponent(Graphics g) {
         long startTime = System.nanoTime();
         super.paintComponent(g); // Clears the panel
-        if (map != null) {
-            // Pass the integer zoomFactor directly
-            map.display(g, currentWidth, currentHeight, currentCameraX, currentCameraY, currentZoomFactor);
-        }
-
-        // Draw robots
-        if (robots != null) {
-            for (Robot robot : robots) {
-                if (robot.getImage() != null && robot.isAlive()) {
-                    int screenX = (int) (robot.getX() * currentZoomFactor - currentCameraX);
-                    int screenY = (int) (robot.getY() * currentZoomFactor - currentCameraY);
-                    int scaledSize = (int) (Utilities.ROBOT_SIZE * currentZoomFactor);
-                    g.drawImage(robot.getImage(), screenX, screenY, scaledSize, scaledSize, null);
-                }
-            }
-        }
-
-        // Draw projectiles
-        if (projectiles != null) {
-            for (Projectile projectile : projectiles) {
-                if (projectile.getProjectileImage() != null) {
-                    int screenX = (int) (projectile.getX() * currentZoomFactor - currentCameraX);
-                    int screenY = (int) (projectile.getY() * currentZoomFactor - currentCameraY);
-                    int scaledSize = (int) (Utilities.PROJECTILE_SIZE * currentZoomFactor);
-                    g.drawImage(projectile.getProjectileImage(), screenX, screenY, scaledSize, scaledSize, null);
-                }
-            }
+        WorldSnapshot snapshot = publishSnapshots ? latestSnapshot.get() : WorldSnapshot.of(this);
+        if (snapshot != null) {
+            snapshot.draw(g, mapRenderer, robotImages, projectileImages, currentWidth, currentHeight, currentCameraX,
+                    currentCameraY, currentZoomFactor);
         }
-
-        // Draw powerUps
-        if (powerUps != null) {
-            for (PowerUp powerUp : powerUps) {
-                if (powerUp.getImage() != null) {
-                    double topLeftXWorld = powerUp.getX();
-                    double topLeftYWorld = powerUp.getY();
-
-                    int screenX = (int) (topLeftXWorld * currentZoomFactor - currentCameraX);
-                    int screenY = (int) (topLeftYWorld * currentZoomFactor - currentCameraY);
-                    int scaledSize = (int) (Utilities.POWER_UP_SIZE * currentZoomFactor);
-
-                    g.drawImage(powerUp.getImage(), screenX, screenY, scaledSize, scaledSize, null);
-                }
-            }
+        if (metrics != null) {
+            metrics.record(GameMetrics.Phase.PAINT, System.nanoTime() - startTime);
         }
-        long endTime = System.nanoTime();
-        long duration = (endTime - startTime); // in nanoseconds
-        // System.out.println("Map drawing time: " + duration / 1_000_000.0 + " ms");
     }
 
     public void step() {
         final long THINK_TIME_LIMIT_MS = 5; // 5 milliseconds for robot think time
+        final long THINK_GRACE_MS = 50; // Extra time a timed out think gets to stop after being interrupted
+        GameMetrics metrics = this.metrics;
+        long tickStart = metrics != null ? System.nanoTime() : 0;
+        long phaseStart = tickStart;
 
         if (robots != null) {
+            // Before anyone thinks, so every robot sees the tick as it started
+            if (sensors == null) {
+                sensors = new Sensors(this);
+            } else {
+                sensors.reset(this);
+            }
             for (Robot robot : robots) {
                 if (!robot.isAlive()) {
                     continue; // Skip dead robots
                 }
 
-                // Execute robot.think() in a separate thread with a timeout
-                Thread thinkThread = new Thread(() -> {
+                // Execute robot.think() through the think executor with a timeout
+                Runnable thinkTask = () -> {
                     try {
-                        robot.think(this.robots, projectiles, this.map, this.powerUps);
+                        robot.think(this.robots, projectiles.projectiles(), this.map, this.powerUps);
                         // If think completes without exception, it's initially considered successful
                         // The timeout check below will confirm this
                         robot.step(this);
@@ -269,35 +276,36 @@ class Game extends JPanel {
                                 .println("Exception in Robot " + robot.getName() + " think method: " + e.getMessage());
                         e.printStackTrace();
                         robot.setSuccessfulThink(false); // Mark as unsuccessful due to exception
+                        if (metrics != null) {
+                            metrics.thinkFailed();
+                        }
                     }
-                });
+                };
 
-                thinkThread.setName("RobotThinkThread-" + robot.getName());
                 long startTime = System.currentTimeMillis();
-                thinkThread.start();
-
+                int projectileCount = projectiles.size();
                 try {
-                    thinkThread.join(THINK_TIME_LIMIT_MS); // Wait for the thread to finish with a timeout
+                    boolean finished = thinkExecutor.run("RobotThinkThread-" + robot.getName(), thinkTask,
+                            THINK_TIME_LIMIT_MS, THINK_GRACE_MS);
                     long elapsedTime = System.currentTimeMillis() - startTime;
 
-                    if (thinkThread.isAlive()) {
-                        // Thread is still alive, meaning it timed out
-                        thinkThread.interrupt(); // Attempt to interrupt the thread
-                        // It's important that the robot's think() method checks Thread.interrupted()
-                        // or handles InterruptedException to stop gracefully.
-                        // We'll wait a tiny bit more for it to hopefully terminate after interrupt.
-                        thinkThread.join(50); // Give it a moment to die after interrupt
+                    if (!finished) {
+                        // The think timed out. It's important that the robot's think() method checks
+                        // Thread.interrupted() or handles InterruptedException to stop gracefully.
                         robot.setSuccessfulThink(false);
                         System.out.println(
                                 "Robot " + robot.getName() + " think method timed out after " + elapsedTime + "ms.");
+                        if (metrics != null) {
+                            metrics.thinkTimedOut(robot.getName());
+                        }
                     } else if (robot.isSuccessfulThink()) {
-                        // Thread finished on its own within the time limit AND no exception occurred
-                        // (isSuccessfulThink would be false if an exception happened in the runnable)
+                        // Think finished on its own within the time limit AND no exception occurred
+                        // (isSuccessfulThink would be false if an exception happened in the task)
                         robot.setSuccessfulThink(true);
                     }
-                    // If an exception occurred in thinkThread, successfulThink is already false.
+                    // If an exception occurred in the think task, successfulThink is already false.
                 } catch (InterruptedException e) {
-                    // The Game thread itself was interrupted while waiting for the thinkThread
+                    // The Game thread itself was interrupted while waiting for the think
                     System.err.println("Game thread interrupted while waiting for robot think: " + e.getMessage());
                     robot.setSuccessfulThink(false);
                     Thread.currentThread().interrupt(); // Preserve interrupt status
@@ -305,6 +313,12 @@ class Game extends JPanel {
 
                 // Robot.step() is final and takes Game instance
 
+                if (metrics != null) {
+                    long now = System.nanoTime();
+                    metrics.record(GameMetrics.Phase.THINK, now - phaseStart);
+                    metrics.projectilesSpawned(projectiles.size() - projectileCount);
+                    phaseStart = now;
+                }
             }
         }
         // check for powerup colllisions
@@ -357,36 +371,48 @@ class Game extends JPanel {
                 }
             }
             powerUps.removeAll(collectedPowerUps); // Remove all collected power-ups from the game
+            if (metrics != null) {
+                metrics.powerUpsCollected(collectedPowerUps.size());
+            }
+        }
+        if (metrics != null) {
+            long now = System.nanoTime();
+            metrics.record(GameMetrics.Phase.POWER_UPS, now - phaseStart);
+            phaseStart = now;
         }
 
-        // Update projectiles
-        if (projectiles != null) {
-            for (Projectile projectile : projectiles) {
-                projectile.update(this);
-            }
+        // Index robots by cell so projectiles only test the robots near them
+        if (useSpatialIndex) {
+            rebuildRobotGrid();
         }
 
-        // Remove dead projectiles
-        if (projectiles != null) {
-            projectiles.removeIf(projectile -> !projectile.isAlive());
+        // Update projectiles, then remove dead ones
+        projectiles.updateAll();
+        int destroyed = projectiles.removeDead();
+        if (metrics != null) {
+            metrics.projectilesDestroyed(destroyed);
+            long now = System.nanoTime();
+            metrics.record(GameMetrics.Phase.PROJECTILES, now - phaseStart);
+            phaseStart = now;
         }
 
         // add power ups
-        if (Math.random() < Utilities.POWER_UP_SPAWN_CHANCE) {
+        if (randomGenerator.nextDouble() < Utilities.POWER_UP_SPAWN_CHANCE) {
             int encodedSpawnLocation = smartSpawn(); // Use smartSpawn to find a location
             if (encodedSpawnLocation != -1) {
-                int numCols = (this.map.getTiles() != null && this.map.getTiles().length > 0)
-                        ? this.map.getTiles()[0].length
-                        : 0;
+                int numCols = this.map.width();
                 if (numCols > 0) {
                     int spawnRow = encodedSpawnLocation / numCols;
                     int spawnCol = encodedSpawnLocation % numCols;
-                    // PowerUp constructor expects tile coordinates (col, row) or (xTile, yTile)
-                    // Based on PowerUp.java, it seems x and y are tile coordinates.
+                    // PowerUp takes pixel coordinates; center it in the tile
                     PowerUp newPowerUp = new PowerUp(
                             (spawnCol + .5) * Utilities.TILE_SIZE - Utilities.POWER_UP_SIZE / 2,
-                            (spawnRow + .5) * Utilities.TILE_SIZE - Utilities.POWER_UP_SIZE / 2);
+                            (spawnRow + .5) * Utilities.TILE_SIZE - Utilities.POWER_UP_SIZE / 2,
+                            randomGenerator);
                     powerUps.add(newPowerUp);
+                    if (metrics != null) {
+                        metrics.powerUpSpawned();
+                    }
 
                 } else {
                     System.err.println("Cannot spawn power-up: Map has no columns.");
@@ -397,11 +423,118 @@ class Game extends JPanel {
         }
 
         duration++;
+        if (metrics != null) {
+            long now = System.nanoTime();
+            metrics.record(GameMetrics.Phase.SPAWN, now - phaseStart);
+            metrics.record(GameMetrics.Phase.TICK, now - tickStart);
+            metrics.tickFinished();
+            if (isGameOver()) {
+                metrics.gameFinished();
+            }
+        }
+        if (publishSnapshots) {
+            latestSnapshot.set(WorldSnapshot.of(this));
+        }
+        if (recorder != null) {
+            recorder.recordTick(this);
+            if (isGameOver()) {
+                stopRecording();
+            }
+        }
         // System.out.println(duration + " steps taken out of " + maxDuration + " max
         // duration.");
 
     }
 
+    private void rebuildRobotGrid() {
+        if (robotGrid == null) {
+            robotGrid = new SpatialGrid(map.width(), map.height());
+        }
+        robotGrid.clear();
+        for (int i = 0; i < robots.size(); i++) {
+            Robot robot = robots.get(i);
+            if (robot.isAlive()) {
+                robotGrid.insert(i, robot.getX(), robot.getY(), robot.getX() + Utilities.ROBOT_SIZE,
+                        robot.getY() + Utilities.ROBOT_SIZE);
+            }
+        }
+        robotGrid.build();
+    }
+
+    // The robot index for this tick, or null when projectiles should scan every robot
+    SpatialGrid getRobotGrid() {
+        return useSpatialIndex ? robotGrid : null;
+    }
+
+    // Turning this off makes projectiles scan every robot, for comparing against the index
+    public void setUseSpatialIndex(boolean useSpatialIndex) {
+        this.useSpatialIndex = useSpatialIndex;
+    }
+
+    boolean isSweptMovement() {
+        return sweptMovement;
+    }
+
+    // Turning this off makes robots move pixel by pixel again, for comparison
+    public void setSweptMovement(boolean sweptMovement) {
+        this.sweptMovement = sweptMovement;
+    }
+
+    boolean isContinuousProjectiles() {
+        return continuousProjectiles;
+    }
+
+    // Moves projectiles along their whole path each tick instead of in five sub-steps.
+    // Hits can land a little earlier or later than with sub-steps, so seeded games play
+    // out differently with it on
+    public void setContinuousProjectiles(boolean continuousProjectiles) {
+        this.continuousProjectiles = continuousProjectiles;
+    }
+
+    // Turns on publishing a snapshot after every tick, so the game can be stepped on one
+    // thread and painted or inspected from another
+    public void setPublishSnapshots(boolean publishSnapshots) {
+        this.publishSnapshots = publishSnapshots;
+        latestSnapshot.set(publishSnapshots ? WorldSnapshot.of(this) : null);
+    }
+
+    // The state at the end of the latest tick, or null if publishing is off. Safe from any thread
+    public WorldSnapshot getSnapshot() {
+        return latestSnapshot.get();
+    }
+
+    // Starts recording timings and counters into the given metrics, or stops if null
+    public void setMetrics(GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Writes every tick from now on to a replay file, see ReplayRecorder
+    public void startRecording(Path path) throws IOException {
+        stopRecording();
+        recorder = new ReplayRecorder(path, this);
+    }
+
+    // Finishes the replay file; called automatically when the game ends
+    public void stopRecording() {
+        if (recorder != null) {
+            recorder.finish(this);
+            recorder = null;
+        }
+    }
+
+    // Chooses how robot thinks are run, see ThinkStrategy
+    public void setThinkStrategy(ThinkStrategy strategy) {
+        this.thinkExecutor = strategy.executor();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
     public int getDuration() {
         return duration;
     }
@@ -414,15 +547,32 @@ class Game extends JPanel {
         return robots;
     }
 
-    public void addProjectile(Projectile projectile) {
-        projectiles.add(projectile);
+    // Fires a projectile for the given robot; called from Robot.step()
+    void spawnProjectile(Robot owner, double x, double y, int xTarget, int yTarget, int speed, int damage) {
+        projectiles.spawn(robots.indexOf(owner), x, y, xTarget, yTarget, speed, damage);
     }
 
     public Map getMap() {
         return map;
     }
 
+    // The live projectiles, in the order they were fired. See Projectile for how long each one stays valid
     public ArrayList<Projectile> getProjectiles() {
+        return projectiles.projectiles();
+    }
+
+    // What projectiles hit during the last step(), in the order they hit, each with how far
+    // through the tick it happened. Only good until the next step(), like getProjectiles()
+    public ArrayList<Impact> getImpacts() {
+        return projectiles.impacts();
+    }
+
+    // The Sensors every robot shares this tick, or null before the first step()
+    Sensors getSensors() {
+        return sensors;
+    }
+
+    ProjectileStore getProjectileStore() {
         return projectiles;
     }
 
@@ -12,6 +12,11 @@ import java.util.Set;
 import java.text.DecimalFormat;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.locks.LockSupport;
 
 public class GameManager {
     private ArrayList<String> robotOptions; // Includes "MyRobot" first, then others
@@ -29,19 +34,27 @@ public class GameManager {
     private JLabel timerLabel;
     private JLabel speedLabel;
     private JPanel robotStatusPanel;
+    private final ArrayList<RobotStatusView> robotStatusViews = new ArrayList<>();
     private JFrame gameOverFrame;
 
     private double cameraX = 0;
     private double cameraY = 0;
     private double zoomFactor = 1.0;
-    private double gameSpeedFactor = 1.0;
-    private int gameLoopCounter = 0;
+    private volatile double gameSpeedFactor = 1.0; // Read by the simulation thread
+    private Thread simulationThread; // Steps the game; the timer only repaints
+    private volatile boolean simulationRunning = false;
+    private long rateSampleNanos = 0; // When ticksPerSecond was last measured
+    private int rateSampleTick = 0;
+    private double ticksPerSecond = 0;
 
     private final int SCROLL_STEP = 32;
     private final int GAME_TIMER_DELAY_MS = 40;
-    private final double[] speedFactors = {0.25, 0.5, 1.0, 2.0, 4.0};
+    private static final double MAX_SPEED = Double.POSITIVE_INFINITY; // As many ticks as the machine can do
+    private final double[] speedFactors = {0.25, 0.5, 1.0, 2.0, 4.0, MAX_SPEED};
     private int currentSpeedIndex = 2;
     private static final DecimalFormat df = new DecimalFormat("0.##");
+    private static final File REPLAY_DIRECTORY = new File("replays");
+    private static final String REPLAY_EXTENSION = ".jjr";
 
     private static final int MAX_TOTAL_ROBOT_SLOTS = 16; // Total capacity
     private ArrayList<JComboBox<String>> robotSlotComboBoxesList; // Changed to ArrayList
@@ -102,19 +115,7 @@ public class GameManager {
 
     private void loadMapOptions() { // Renamed from loadMapNames
         mapOptions.clear();
-        File mapsDir = new File("app/src/main/resources/maps");
-        if (mapsDir.exists() && mapsDir.isDirectory()) {
-            File[] files = mapsDir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (file.isFile() && file.getName().endsWith(".txt")) {
-                        String name = file.getName().substring(0, file.getName().length() - ".txt".length());
-                        mapOptions.add(name);
-                    }
-                }
-                Collections.sort(mapOptions);
-            }
-        }
+        mapOptions.addAll(MapRegistry.names());
         if (mapOptions.isEmpty()) {
             mapOptions.add("Standard");
             System.err.println("No map files found. Added Standard map.");
@@ -197,6 +198,12 @@ public class GameManager {
         bottomControlsPanel.add(startButton, gbc);
         startButton.addActionListener(e -> startGame());
 
+        JButton replayButton = new JButton("Watch Replay");
+        replayButton.setFont(new Font("Arial", Font.PLAIN, 14));
+        replayButton.addActionListener(e -> chooseReplay());
+        gbc.gridx = 0; gbc.gridy = 2; gbc.weightx = 0;
+        bottomControlsPanel.add(replayButton, gbc);
+
 
         frame.add(scrollPane, BorderLayout.CENTER);
         frame.add(bottomControlsPanel, BorderLayout.SOUTH);
@@ -345,6 +352,12 @@ public class GameManager {
         // ...
         int maxGameDurationSeconds = 300; // Example
         gamePanel = new Game(selectedRobotList, selectedMapName, maxGameDurationSeconds * 1000 / GAME_TIMER_DELAY_MS);
+        gamePanel.setPublishSnapshots(true); // It's stepped on the simulation thread and painted from snapshots
+        recordGame();
+        if (Boolean.getBoolean("javaJostle.metrics")) {
+            // Run with -DjavaJostle.metrics=true to print tick timings when the game ends
+            gamePanel.setMetrics(new GameMetrics());
+        }
         // ... (rest of gameFrame setup as you had before) ...
 
         gamePanel.setPreferredSize(new Dimension(Utilities.SCREEN_WIDTH, Utilities.SCREEN_HEIGHT));
@@ -400,7 +413,7 @@ public class GameManager {
         timerLabel.setForeground(Color.BLUE);
         timerLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         centerControls.add(timerLabel);
-        speedLabel = new JLabel("Speed: " + df.format(gameSpeedFactor) + "x");
+        speedLabel = new JLabel(speedText());
         speedLabel.setFont(new Font("Arial", Font.PLAIN, 14));
         speedLabel.setForeground(Color.WHITE);
         speedLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -415,7 +428,7 @@ public class GameManager {
         speedToggleButton.addActionListener(e -> {
             currentSpeedIndex = (currentSpeedIndex + 1) % speedFactors.length;
             gameSpeedFactor = speedFactors[currentSpeedIndex];
-            speedLabel.setText("Speed: " + df.format(gameSpeedFactor) + "x");
+            speedLabel.setText(speedText());
             if(gamePanel != null) gamePanel.requestFocusInWindow();
         });
         rightControls.add(speedToggleButton);
@@ -430,6 +443,7 @@ public class GameManager {
         robotStatusPanel.setBackground(Color.DARK_GRAY.darker());
         robotStatusPanel.setPreferredSize(new Dimension(Utilities.SCREEN_WIDTH, 100)); // Adjust as needed
         bottomContainer.add(robotStatusPanel);
+        createRobotStatusViews();
 
         gameFrame.add(gamePanel, BorderLayout.CENTER);
         gameFrame.add(bottomContainer, BorderLayout.SOUTH);
@@ -478,10 +492,31 @@ public class GameManager {
         if (gameTimer != null && gameTimer.isRunning()) gameTimer.stop();
         gameTimer = new Timer(GAME_TIMER_DELAY_MS, ae -> gameLoop());
         gameTimer.start();
-        gameLoopCounter = 0;
+        startSimulationThread();
         updateGameDisplayAndRepaint(); // Initial paint
     }
 
+    // Every game played in the window is saved to the replays folder
+    private void recordGame() {
+        File replayFile = new File(REPLAY_DIRECTORY,
+                new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + REPLAY_EXTENSION);
+        try {
+            Files.createDirectories(REPLAY_DIRECTORY.toPath());
+            gamePanel.startRecording(replayFile.toPath());
+        } catch (IOException e) {
+            System.err.println("Could not record this game: " + e.getMessage());
+        }
+    }
+
+    private void chooseReplay() {
+        JFileChooser chooser = new JFileChooser(REPLAY_DIRECTORY.exists() ? REPLAY_DIRECTORY : new File("."));
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Java Jostle replays",
+                REPLAY_EXTENSION.substring(1)));
+        if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            ReplayViewer.open(frame, chooser.getSelectedFile().toPath());
+        }
+    }
+
     private void adjustCameraForCenteredZoom(double oldZoomFactor, double newZoomFactor) {
         if (gamePanel == null || gamePanel.getWidth() == 0 || gamePanel.getHeight() == 0) return;
         double panelCenterX = gamePanel.getWidth() / 2.0;
@@ -492,55 +527,38 @@ public class GameManager {
         cameraY = worldCenterY * newZoomFactor - panelCenterY;
     }
 
-    private void updateRobotStatusDisplay() {
-        if (robotStatusPanel == null || gamePanel == null || gamePanel.getRobots() == null) return;
+    // Builds one status view per robot; after this the views are only updated, never rebuilt
+    private void createRobotStatusViews() {
         robotStatusPanel.removeAll();
+        robotStatusViews.clear();
         for (Robot robot : gamePanel.getRobots()) {
-            JPanel singleRobotPanel = new JPanel();
-            singleRobotPanel.setOpaque(false);
-            singleRobotPanel.setLayout(new BoxLayout(singleRobotPanel, BoxLayout.Y_AXIS));
-            singleRobotPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-            // Add border based on robot status
-            if (!robot.isSuccessfulThink()) {
-                singleRobotPanel.setBorder(BorderFactory.createLineBorder(Color.RED, 2));
-            } else if (robot.hasSpeedBoost()) {
-                singleRobotPanel.setBorder(BorderFactory.createLineBorder(Color.GREEN, 2));
-            } else if (robot.hasAttackBoost()) {
-                singleRobotPanel.setBorder(BorderFactory.createLineBorder(Color.BLUE, 2));
-            } else {
-                // Optional: set a default border or no border if none of the conditions are met
-                // singleRobotPanel.setBorder(null); // Or a default border
-            }
-
-            BufferedImage img = robot.getImage();
-            JLabel imageLabel = (img != null) ? new JLabel(new ImageIcon(img.getScaledInstance(32, 32, Image.SCALE_SMOOTH))) : new JLabel("No Img");
-            imageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            singleRobotPanel.add(imageLabel);
-            JLabel nameLabel = new JLabel(robot.getName());
-            nameLabel.setForeground(Color.WHITE);
-            nameLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-            singleRobotPanel.add(nameLabel);
-            HealthBar healthBar = new HealthBar(robot.getHealth(), robot.getMaxHealth());
-            healthBar.setPreferredSize(new Dimension(50, 10));
-            healthBar.setAlignmentX(Component.CENTER_ALIGNMENT);
-            singleRobotPanel.add(healthBar);
-            robotStatusPanel.add(singleRobotPanel);
+            RobotStatusView view = new RobotStatusView(robot);
+            robotStatusViews.add(view);
+            robotStatusPanel.add(view);
         }
         robotStatusPanel.revalidate();
         robotStatusPanel.repaint();
     }
 
+    private void updateRobotStatusDisplay() {
+        if (gamePanel == null) return;
+        // Health and boosts come from the snapshot; the robot objects belong to the simulation thread
+        WorldSnapshot snapshot = gamePanel.getSnapshot();
+        for (int i = 0; i < robotStatusViews.size(); i++) {
+            robotStatusViews.get(i).update(snapshot.getRobot(i));
+        }
+    }
+
     private void updateGameDisplayAndRepaint() {
         if (gamePanel != null && gameFrame != null && gameFrame.isVisible()) {
             gamePanel.setDisplayParameters(gamePanel.getWidth(), gamePanel.getHeight(), (int) Math.round(cameraX), (int) Math.round(cameraY), this.zoomFactor);
             gamePanel.repaint();
             if (timerLabel != null) {
-                // gamePanel.getDuration() is the number of steps taken
+                // The snapshot's tick is the number of steps taken
                 // gamePanel.getMaxDuration() is the total number of steps for the game
                 // GAME_TIMER_DELAY_MS is the duration of one step in milliseconds
 
-                int stepsTaken = gamePanel.getDuration();
+                int stepsTaken = gamePanel.getSnapshot().getTick();
                 int maxSteps = gamePanel.getMaxDuration();
                 int stepsRemaining = maxSteps - stepsTaken;
                 if (stepsRemaining < 0) {
@@ -553,53 +571,101 @@ public class GameManager {
                 long seconds = (remainingMilliseconds / 1000) % 60;
                 long millis = remainingMilliseconds % 1000;
 
-                timerLabel.setText(String.format("Time: %02d:%02d:%03d", minutes, seconds, millis));
+                timerLabel.setText(String.format("Time: %02d:%02d:%03d  (%.0f ticks/s)", minutes, seconds, millis,
+                        measureTicksPerSecond(stepsTaken)));
             }
-            if (speedLabel != null) speedLabel.setText("Speed: " + df.format(gameSpeedFactor) + "x");
+            if (speedLabel != null) speedLabel.setText(speedText());
             updateRobotStatusDisplay();
         }
     }
 
+    // Runs on the Swing thread at display rate. The game is stepped on the simulation thread,
+    // so all this does is show the latest snapshot
     private void gameLoop() {
         if (gamePanel == null) {
             if (gameTimer != null) gameTimer.stop();
             return;
         }
+        updateGameDisplayAndRepaint();
+    }
 
-        if (gamePanel.isGameOver()) {
-            if (gameTimer != null) gameTimer.stop();
-            if (gameOverFrame == null || !gameOverFrame.isVisible()) {
-                Robot winner = gamePanel.getWinner();
-                showGameOverScreen(winner);
+    private String speedText() {
+        return gameSpeedFactor == MAX_SPEED ? "Speed: Max" : "Speed: " + df.format(gameSpeedFactor) + "x";
+    }
+
+    // Real ticks per second, averaged over about half a second so the label doesn't flicker
+    private double measureTicksPerSecond(int tick) {
+        long now = System.nanoTime();
+        if (rateSampleNanos == 0 || tick < rateSampleTick) {
+            rateSampleNanos = now;
+            rateSampleTick = tick;
+        } else if (now - rateSampleNanos >= 500_000_000L) {
+            ticksPerSecond = (tick - rateSampleTick) * 1_000_000_000.0 / (now - rateSampleNanos);
+            rateSampleNanos = now;
+            rateSampleTick = tick;
+        }
+        return ticksPerSecond;
+    }
+
+    private void startSimulationThread() {
+        Game game = gamePanel;
+        simulationRunning = true;
+        simulationThread = new Thread(() -> runSimulation(game), "GameSimulation");
+        simulationThread.setDaemon(true);
+        simulationThread.start();
+    }
+
+    // Steps the game one tick every GAME_TIMER_DELAY_MS / speed, or flat out at max speed,
+    // and hands back to the Swing thread when the game ends
+    private void runSimulation(Game game) {
+        long nextTickNanos = System.nanoTime();
+        double pacedSpeed = gameSpeedFactor;
+        while (simulationRunning && !game.isGameOver()) {
+            game.step();
+            double speed = gameSpeedFactor;
+            if (speed == MAX_SPEED) {
+                continue;
+            }
+            long now = System.nanoTime();
+            if (speed != pacedSpeed) {
+                pacedSpeed = speed;
+                nextTickNanos = now; // Start the new pace from here
+            }
+            nextTickNanos += (long) (GAME_TIMER_DELAY_MS * 1_000_000L / speed);
+            long waitNanos = nextTickNanos - now;
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            } else if (waitNanos < -1_000_000_000L) {
+                nextTickNanos = now; // Slow thinks put us far behind; carry on rather than rushing to catch up
             }
+        }
+        if (game.isGameOver()) {
+            SwingUtilities.invokeLater(() -> gameFinished(game));
+        }
+    }
+
+    // Stops the simulation thread and waits for its last step to finish
+    private void stopSimulationThread() {
+        if (simulationThread == null) {
             return;
         }
-        
-        double stepsToExecute = 0;
-        double epsilon = 0.001;
-        if (Math.abs(gameSpeedFactor - speedFactors[0]) < epsilon) { if (gameLoopCounter % 4 == 0) stepsToExecute = 1; }
-        else if (Math.abs(gameSpeedFactor - speedFactors[1]) < epsilon) { if (gameLoopCounter % 2 == 0) stepsToExecute = 1; }
-        else if (Math.abs(gameSpeedFactor - speedFactors[2]) < epsilon) { stepsToExecute = 1; }
-        else if (Math.abs(gameSpeedFactor - speedFactors[3]) < epsilon) { stepsToExecute = 2; }
-        else if (Math.abs(gameSpeedFactor - speedFactors[4]) < epsilon) { stepsToExecute = 4; }
-
-        for (int i = 0; i < stepsToExecute; i++) {
-            if (gamePanel.isGameOver()) break;
-            gamePanel.step();
+        simulationRunning = false;
+        LockSupport.unpark(simulationThread); // Don't wait out a slow-speed pause
+        try {
+            simulationThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        
-        if (gamePanel.isGameOver()) {
-            if (gameTimer != null) gameTimer.stop();
-            if (gameOverFrame == null || !gameOverFrame.isVisible()) {
-                Robot winner = gamePanel.getWinner();
-                showGameOverScreen(winner);
-            }
-        } else {
-            updateGameDisplayAndRepaint();
+        simulationThread = null;
+    }
+
+    private void gameFinished(Game game) {
+        if (game != gamePanel) {
+            return; // A game that has already been left
         }
-        
-        gameLoopCounter++;
-        if (gameLoopCounter >= 10000) gameLoopCounter = 0;
+        if (gameTimer != null) gameTimer.stop();
+        stopSimulationThread(); // The thread has finished; this makes everything it did visible here
+        showGameOverScreen(game.getWinner());
     }
 
     public JPanel createRobotDisplayPanel(Robot robot) {
@@ -651,6 +717,9 @@ public class GameManager {
 
     private void showGameOverScreen(Robot winner) {
         if (gameTimer != null) gameTimer.stop();
+        if (gamePanel != null && gamePanel.getMetrics() != null) {
+            gamePanel.getMetrics().printReport(System.out);
+        }
         if (gameFrame != null) { // Ensure gameFrame is disposed
             gameFrame.setVisible(false);
             gameFrame.dispose(); 
@@ -695,7 +764,9 @@ public class GameManager {
                  gameOverFrame = null;
             }
             // gameFrame is already disposed
+            stopSimulationThread();
             gamePanel = null; // Allow GC
+            robotStatusViews.clear();
             if (gameTimer != null) {
                 gameTimer.stop(); 
                 gameTimer = null;
@@ -703,9 +774,10 @@ public class GameManager {
             
             cameraX = 0; cameraY = 0; zoomFactor = 1.0;
             gameSpeedFactor = 1.0; currentSpeedIndex = 2;
-            gameLoopCounter = 0;
             
             // Re-initialize and show the main menu
+            RobotRegistry.reload(); // Pick up recompiled robot classes
+            MapRegistry.reload(); // And edited maps
             loadRobotOptions(); // Refresh options in case files changed
             loadMapOptions();
             initMenu(); 
@@ -766,6 +838,49 @@ public class GameManager {
         }
     }
 
+    // A robot's picture, name and health bar under the game. Its components are made once;
+    // update() only touches what changed since the last frame
+    class RobotStatusView extends JPanel {
+        private final HealthBar healthBar;
+        private Color borderColor = null; // null for no border
+
+        public RobotStatusView(Robot robot) {
+            setOpaque(false);
+            setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+            setAlignmentX(Component.CENTER_ALIGNMENT);
+
+            BufferedImage img = robot.getImage();
+            JLabel imageLabel = (img != null) ? new JLabel(new ImageIcon(img.getScaledInstance(32, 32, Image.SCALE_SMOOTH))) : new JLabel("No Img");
+            imageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            add(imageLabel);
+            JLabel nameLabel = new JLabel(robot.getName());
+            nameLabel.setForeground(Color.WHITE);
+            nameLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            add(nameLabel);
+            healthBar = new HealthBar(robot.getHealth(), robot.getMaxHealth());
+            healthBar.setPreferredSize(new Dimension(50, 10));
+            healthBar.setAlignmentX(Component.CENTER_ALIGNMENT);
+            add(healthBar);
+        }
+
+        public void update(WorldSnapshot.RobotState state) {
+            // Border based on robot status
+            Color color = null;
+            if (!state.successfulThink) {
+                color = Color.RED;
+            } else if (state.speedBoost) {
+                color = Color.GREEN;
+            } else if (state.attackBoost) {
+                color = Color.BLUE;
+            }
+            if (color != borderColor) {
+                borderColor = color;
+                setBorder(color == null ? null : BorderFactory.createLineBorder(color, 2));
+            }
+            healthBar.setHealth(state.health, state.maxHealth);
+        }
+    }
+
     class HealthBar extends JPanel {
         private int currentHealth;
         private int maxHealth;
@@ -773,6 +888,15 @@ public class GameManager {
             this.currentHealth = currentHealth;
             this.maxHealth = maxHealth;
         }
+
+        // Repaints only when the health actually changed
+        public void setHealth(int currentHealth, int maxHealth) {
+            if (currentHealth != this.currentHealth || maxHealth != this.maxHealth) {
+                this.currentHealth = currentHealth;
+                this.maxHealth = maxHealth;
+                repaint();
+            }
+        }
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
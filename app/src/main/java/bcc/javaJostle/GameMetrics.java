@@ -0,0 +1,168 @@
+package bcc.javaJostle;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Timings and counters for one or more games.
+ *
+ * Metrics are off unless a GameMetrics is handed to Game.setMetrics(); with none set
+ * step() skips every clock read. Several games can share one GameMetrics only if
+ * they run on the same thread; for parallel games give each its own and add() them
+ * together afterwards.
+ */
+public class GameMetrics {
+    // The parts of a tick that get timed
+    public enum Phase {
+        TICK("whole tick"),
+        THINK("robot think"), // one sample per living robot
+        POWER_UPS("power-up pickup"),
+        PROJECTILES("projectiles"),
+        SPAWN("power-up spawn"), // the spawn roll, plus smartSpawn when it comes up
+        PAINT("paint");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private final EnumMap<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final TreeMap<String, Long> thinkTimeouts = new TreeMap<>();
+    private long games = 0;
+    private long ticks = 0;
+    private long thinkExceptions = 0;
+    private long projectilesSpawned = 0;
+    private long projectilesDestroyed = 0;
+    private long powerUpsSpawned = 0;
+    private long powerUpsCollected = 0;
+
+    public GameMetrics() {
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new LatencyHistogram());
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return phases.get(phase);
+    }
+
+    void gameFinished() {
+        games++;
+    }
+
+    void tickFinished() {
+        ticks++;
+    }
+
+    void thinkTimedOut(String robotName) {
+        thinkTimeouts.merge(robotName, 1L, Long::sum);
+    }
+
+    // Called from the think thread, which may still be running after a timeout
+    synchronized void thinkFailed() {
+        thinkExceptions++;
+    }
+
+    void projectilesSpawned(int count) {
+        projectilesSpawned += count;
+    }
+
+    void projectilesDestroyed(int count) {
+        projectilesDestroyed += count;
+    }
+
+    void powerUpSpawned() {
+        powerUpsSpawned++;
+    }
+
+    void powerUpsCollected(int count) {
+        powerUpsCollected += count;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getThinkTimeouts(String robotName) {
+        return thinkTimeouts.getOrDefault(robotName, 0L);
+    }
+
+    public long getProjectilesSpawned() {
+        return projectilesSpawned;
+    }
+
+    public long getProjectilesDestroyed() {
+        return projectilesDestroyed;
+    }
+
+    public long getPowerUpsCollected() {
+        return powerUpsCollected;
+    }
+
+    // Simulated ticks per second of time spent inside step()
+    public double getTicksPerSecond() {
+        long nanos = phases.get(Phase.TICK).getTotal();
+        return nanos == 0 ? 0 : ticks * 1_000_000_000.0 / nanos;
+    }
+
+    // Adds another game's (or runner's) metrics into these
+    public synchronized void add(GameMetrics other) {
+        for (Phase phase : Phase.values()) {
+            phases.get(phase).add(other.phases.get(phase));
+        }
+        other.thinkTimeouts.forEach((name, count) -> thinkTimeouts.merge(name, count, Long::sum));
+        games += other.games;
+        ticks += other.ticks;
+        thinkExceptions += other.thinkExceptions;
+        projectilesSpawned += other.projectilesSpawned;
+        projectilesDestroyed += other.projectilesDestroyed;
+        powerUpsSpawned += other.powerUpsSpawned;
+        powerUpsCollected += other.powerUpsCollected;
+    }
+
+    public void printReport(PrintStream out) {
+        out.println("Phase timings (microseconds):");
+        out.println(String.format("  %-16s %10s %9s %9s %9s %9s %9s %9s", "Phase", "Count", "Mean", "p50", "p90",
+                "p99", "p99.9", "Max"));
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = phases.get(phase);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            out.println(String.format("  %-16s %10d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f", phase.label,
+                    histogram.getCount(), histogram.getMean() / 1000, micros(histogram.getValueAtPercentile(50)),
+                    micros(histogram.getValueAtPercentile(90)), micros(histogram.getValueAtPercentile(99)),
+                    micros(histogram.getValueAtPercentile(99.9)), micros(histogram.getMax())));
+        }
+        out.println("Counters:");
+        List<String[]> counters = new ArrayList<>();
+        counters.add(new String[] { "games", Long.toString(games) });
+        counters.add(new String[] { "ticks", Long.toString(ticks) });
+        counters.add(new String[] { "ticks per second", String.format("%.0f", getTicksPerSecond()) });
+        counters.add(new String[] { "projectiles spawned", Long.toString(projectilesSpawned) });
+        counters.add(new String[] { "projectiles destroyed", Long.toString(projectilesDestroyed) });
+        counters.add(new String[] { "power-ups spawned", Long.toString(powerUpsSpawned) });
+        counters.add(new String[] { "power-ups collected", Long.toString(powerUpsCollected) });
+        counters.add(new String[] { "think exceptions", Long.toString(thinkExceptions) });
+        for (String[] counter : counters) {
+            out.println(String.format("  %-22s %12s", counter[0], counter[1]));
+        }
+        if (!thinkTimeouts.isEmpty()) {
+            out.println("Think timeouts:");
+            thinkTimeouts.forEach((name, count) -> out.println(String.format("  %-22s %12d", name, count)));
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
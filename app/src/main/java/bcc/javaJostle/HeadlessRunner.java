@@ -0,0 +1,203 @@
+package bcc.javaJostle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many matches without the GUI and reports how each robot did.
+ *
+ * Usage: HeadlessRunner [--games N] [--map NAME] [--threads N] [--max-ticks N]
+ *                       [--think POOLED|THREAD_PER_THINK|DIRECT] [--seed N] [--metrics] [--replays DIR]
+ *                       [--verbose] robot1 robot2 ...
+ *
+ * With --seed, game i is played with seed N + i, so a run can be repeated exactly
+ * (together with --think DIRECT, which rules out think timeouts). --metrics adds
+ * per-phase tick timings and game counters for all the games to the report.
+ * --replays saves every game to DIR/game-N.jjr for ReplayViewer.
+ *
+ * From gradle: gradle simulate --args="--games 200 MyRobot Rando"
+ */
+public class HeadlessRunner {
+    private int games = 50;
+    private String mapName = "Standard";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxTicks = 7500;
+    private ThinkStrategy thinkStrategy = ThinkStrategy.POOLED;
+    private boolean verbose = false;
+    private Long baseSeed = null; // null means every game gets a random seed
+    private GameMetrics metrics = null; // null unless --metrics was given
+    private Path replayDirectory = null; // null unless --replays was given
+    private ArrayList<String> robotNames = new ArrayList<>();
+
+    // The outcome of a single match
+    static class MatchResult {
+        final String winner; // class name of the winning robot, null for a tie
+        final int duration;
+
+        MatchResult(String winner, int duration) {
+            this.winner = winner;
+            this.duration = duration;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Utilities.setHeadless(true); // Nothing is drawn, so skip loading images
+        HeadlessRunner runner = new HeadlessRunner();
+        if (!runner.parseArgs(args)) {
+            System.err.println("Usage: HeadlessRunner [--games N] [--map NAME] [--threads N] [--max-ticks N]"
+                    + " [--think POOLED|THREAD_PER_THINK|DIRECT] [--seed N] [--metrics] [--replays DIR] [--verbose]"
+                    + " robot1 robot2 ...");
+            System.exit(1);
+        }
+        runner.run();
+    }
+
+    private boolean parseArgs(String[] args) {
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--games":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "--map":
+                        mapName = args[++i];
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--max-ticks":
+                        maxTicks = Integer.parseInt(args[++i]);
+                        break;
+                    case "--think":
+                        thinkStrategy = ThinkStrategy.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--seed":
+                        baseSeed = Long.parseLong(args[++i]);
+                        break;
+                    case "--metrics":
+                        metrics = new GameMetrics();
+                        break;
+                    case "--replays":
+                        replayDirectory = Paths.get(args[++i]);
+                        break;
+                    case "--verbose":
+                        verbose = true;
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            System.err.println("Unknown option: " + args[i]);
+                            return false;
+                        }
+                        robotNames.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Bad arguments: " + e.getMessage());
+            return false;
+        }
+        return robotNames.size() >= 2 && games > 0 && threads > 0 && maxTicks > 0;
+    }
+
+    public void run() throws Exception {
+        PrintStream report = System.out;
+        if (!verbose) {
+            // Games and robots print a lot; keep the report readable
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        if (replayDirectory != null) {
+            Files.createDirectories(replayDirectory);
+        }
+        long startTime = System.nanoTime();
+        List<MatchResult> results = new ArrayList<>();
+        ExecutorService matchPool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<MatchResult>> futures = new ArrayList<>();
+            Random seeds = new Random();
+            for (int i = 0; i < games; i++) {
+                long seed = baseSeed != null ? baseSeed + i : seeds.nextLong();
+                Path replay = replayDirectory != null ? replayDirectory.resolve("game-" + i + ".jjr") : null;
+                futures.add(matchPool.submit(
+                        () -> playMatch(robotNames, mapName, maxTicks, seed, thinkStrategy, metrics, replay)));
+            }
+            for (Future<MatchResult> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            matchPool.shutdownNow();
+            System.setOut(report);
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        printReport(report, results, elapsedNanos);
+    }
+
+    // Plays one game to the end without drawing anything. If totals isn't null the
+    // game's metrics are added to it, and if replay isn't null the game is recorded there
+    static MatchResult playMatch(ArrayList<String> robotNames, String mapName, int maxTicks, long seed,
+            ThinkStrategy thinkStrategy, GameMetrics totals, Path replay) throws IOException {
+        Game game = new Game(robotNames, mapName, maxTicks, seed);
+        game.setThinkStrategy(thinkStrategy);
+        if (replay != null) {
+            game.startRecording(replay);
+        }
+        if (totals != null) {
+            game.setMetrics(new GameMetrics()); // Each game records on its own thread, merged at the end
+        }
+        while (!game.isGameOver()) {
+            game.step();
+        }
+        if (totals != null) {
+            totals.add(game.getMetrics());
+        }
+        Robot winner = game.getWinner();
+        return new MatchResult(winner != null ? winner.getClass().getSimpleName() : null, game.getDuration());
+    }
+
+    private void printReport(PrintStream out, List<MatchResult> results, long elapsedNanos) {
+        TreeMap<String, Integer> wins = new TreeMap<>();
+        for (String name : robotNames) {
+            wins.put(name, 0);
+        }
+        int ties = 0;
+        long totalDuration = 0;
+        for (MatchResult result : results) {
+            totalDuration += result.duration;
+            if (result.winner == null) {
+                ties++;
+            } else {
+                wins.merge(result.winner, 1, Integer::sum);
+            }
+        }
+
+        int played = results.size();
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        out.println("Played " + played + " games of " + String.join(" vs ", robotNames) + " on " + mapName
+                + " using " + threads + " threads" + (baseSeed != null ? " from seed " + baseSeed : ""));
+        List<String> names = new ArrayList<>(wins.keySet());
+        Collections.sort(names, (a, b) -> wins.get(b) - wins.get(a));
+        for (String name : names) {
+            int count = wins.get(name);
+            out.println(String.format("  %-20s %6d wins  %6.2f%%", name, count, 100.0 * count / played));
+        }
+        out.println(String.format("  %-20s %6d       %6.2f%%", "Ties", ties, 100.0 * ties / played));
+        out.println(String.format("Average duration: %.1f ticks", (double) totalDuration / played));
+        out.println(String.format("Elapsed: %.2f s (%.0f games/hour)", seconds, played / seconds * 3600));
+        if (metrics != null) {
+            metrics.printReport(out);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package bcc.javaJostle;
+
+/**
+ * A read-only look at one projectile hitting a wall or a robot during the last
+ * tick. Get them from Game.getImpacts().
+ *
+ * Like Projectile, an Impact is only good until the next tick: the same objects
+ * are reused to show the next tick's impacts.
+ */
+public class Impact {
+    private final ProjectileStore store;
+    private final int index;
+
+    Impact(ProjectileStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    // The id of the projectile that hit, as Projectile.getId() reported it
+    public int getProjectileId() {
+        return store.impactId(index);
+    }
+
+    // The robot that fired it, or null if no robot did
+    public Robot getOwner() {
+        return store.robot(store.impactOwner(index));
+    }
+
+    // The robot that was hit, or null if it was a wall
+    public Robot getRobot() {
+        return store.robot(store.impactRobot(index));
+    }
+
+    public boolean isWall() {
+        return store.impactRobot(index) < 0;
+    }
+
+    // Where the projectile's top-left corner was when it hit
+    public double getX() {
+        return store.impactX(index);
+    }
+
+    public double getY() {
+        return store.impactY(index);
+    }
+
+    /**
+     * How far through the tick the hit happened, from 0 (where the projectile
+     * started the tick) to 1 (the whole tick's move). With continuous projectiles
+     * this is exact; with sub-steps it is the end of the sub-step that hit.
+     */
+    public double getTime() {
+        return store.impactTime(index);
+    }
+}
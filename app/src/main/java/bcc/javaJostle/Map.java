@@ -1,69 +1,491 @@
 package bcc.javaJostle;
 
 import java.awt.Graphics;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
+/**
+ * A grid of wall, grass and mud tiles. The tiles never change once loaded, so one
+ * Map can be shared by any number of games at once; MapRegistry hands out those
+ * shared copies. Each game plays on its own forGame() view of the shared map, which
+ * uses the same tile arrays but keeps its own getTiles() grid. Nothing else changes
+ * after loading; cached drawing lives in MapRenderer, one per view.
+ */
 public class Map {
-    private int[][] tiles;
+    // Clear-tile counts are capped here; callers only ever look a tile or two ahead
+    public static final int MAX_CLEAR_TILES = Byte.MAX_VALUE;
 
+    public static final String TEXT_EXTENSION = ".txt";
+    public static final String BINARY_EXTENSION = ".map";
+    // Binary maps are MAGIC, VERSION, cols and rows, then the tiles row-major, four to a byte
+    // starting at the low bits. Each 2-bit code is the tile type, or UNKNOWN_CODE
+    static final int MAGIC = 0x4A4A4D50; // "JJMP"
+    static final short VERSION = 1;
+    private static final int HEADER_SIZE = 14;
+    private static final int UNKNOWN_CODE = 3;
+
+    private String name;
+
+    // Tiles stored row-major: the tile at (col, row) is tiles[row * cols + col]
+    private byte[] tiles;
+    private int cols;
+    private int rows;
+    private int[] grassTiles; // Index (row * cols + col) of every grass tile, in row-major order
+    private final boolean perGame; // Made by forGame(), so getTiles() can keep its grid
+    private volatile int[][] tileGrid; // Built on the first getTiles() call of a per-game view
+
+    // How many non-wall tiles follow each tile in each direction before a wall or the map edge
+    private byte[] clearEast;
+    private byte[] clearWest;
+    private byte[] clearNorth;
+    private byte[] clearSouth;
+
+    // Loads maps/<name> from resources, the binary form if there is one, otherwise the text
     public Map(String name) {
-        // load the map from a file or resource
-        ArrayList<int[]> rows = new ArrayList<>();
+        this.name = name;
+        perGame = false;
+        loadTiles(name);
+        buildWallDistances();
+        findGrass();
+    }
+
+    private Map(String name, Path file) throws IOException {
+        this.name = name;
+        perGame = false;
+        if (file.toString().endsWith(BINARY_EXTENSION)) {
+            readBinary(mapFile(file));
+        } else {
+            try (InputStream in = Files.newInputStream(file)) {
+                readText(in);
+            }
+        }
+        buildWallDistances();
+        findGrass();
+    }
+
+    // A view of shared that reuses its tiles and wall distances
+    private Map(Map shared) {
+        name = shared.name;
+        tiles = shared.tiles;
+        cols = shared.cols;
+        rows = shared.rows;
+        grassTiles = shared.grassTiles;
+        clearEast = shared.clearEast;
+        clearWest = shared.clearWest;
+        clearNorth = shared.clearNorth;
+        clearSouth = shared.clearSouth;
+        perGame = true;
+    }
+
+    // This map for one game. It costs a few references; nothing is copied until getTiles()
+    Map forGame() {
+        return new Map(this);
+    }
+
+    // Loads a map file from disk, binary if it ends in .map and text otherwise
+    public static Map read(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return new Map(dot > 0 ? fileName.substring(0, dot) : fileName, file);
+    }
+
+    private void loadTiles(String name) {
         // Path relative to the resources folder
-        String resourcePath = "/maps/" + name + ".txt"; 
-        InputStream inputStream = Map.class.getResourceAsStream(resourcePath);
+        URL binary = Map.class.getResource("/maps/" + name + BINARY_EXTENSION);
+        String resourcePath = "/maps/" + name + TEXT_EXTENSION;
+        try {
+            if (binary != null) {
+                readBinary(mapResource(binary));
+                return;
+            }
+            InputStream inputStream = Map.class.getResourceAsStream(resourcePath);
+            if (inputStream == null) {
+                System.err.println("Cannot find map resource: " + resourcePath);
+                setTiles(new byte[0], new int[0], 0); // Initialize to empty if resource not found
+                return;
+            }
+            try (inputStream) {
+                readText(inputStream);
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            setTiles(new byte[0], new int[0], 0); // Initialize to empty if loading fails
+        }
+    }
 
-        if (inputStream == null) {
-            System.err.println("Cannot find map resource: " + resourcePath);
-            tiles = new int[0][0]; // Initialize to empty if resource not found
+    /**
+     * Parses the text format: one row per line, W, G or M for each tile, separated by
+     * whitespace. Anything else is an unknown tile, and so is a blank line. This works
+     * a byte at a time straight into the tile array, without making a string per line
+     * or per tile.
+     */
+    private void readText(InputStream in) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        byte[] parsed = new byte[4096];
+        int count = 0;
+        int[] rowEnds = new int[64];
+        int rowCount = 0;
+
+        int lineStart = 0; // Tiles before this index belong to earlier rows
+        int lineLength = 0; // Characters seen on the current line
+        int tokenLength = 0;
+        int tokenChar = 0; // The first character of the current token
+        boolean afterCarriageReturn = false;
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            for (int i = 0; i < n; i++) {
+                int b = buffer[i];
+                if (b == '\n' && afterCarriageReturn) {
+                    afterCarriageReturn = false; // The second half of \r\n
+                    continue;
+                }
+                afterCarriageReturn = b == '\r';
+                boolean lineBreak = b == '\n' || b == '\r';
+                if (lineBreak || b == ' ' || b == '\t' || b == '\f' || b == 0x0B) {
+                    if (tokenLength > 0) {
+                        parsed = append(parsed, count++, tileFor(tokenChar, tokenLength));
+                        tokenLength = 0;
+                    }
+                } else if (tokenLength++ == 0) {
+                    tokenChar = b;
+                }
+                if (!lineBreak) {
+                    lineLength++;
+                    continue;
+                }
+                // End of a row
+                if (count == lineStart) {
+                    parsed = append(parsed, count++, (byte) -1); // A line with no tiles on it is one unknown tile
+                }
+                rowEnds = append(rowEnds, rowCount++, count);
+                lineStart = count;
+                lineLength = 0;
+            }
+        }
+        if (lineLength > 0) {
+            // The last line had no line break after it
+            if (tokenLength > 0) {
+                parsed = append(parsed, count++, tileFor(tokenChar, tokenLength));
+            } else if (count == lineStart) {
+                parsed = append(parsed, count++, (byte) -1);
+            }
+            rowEnds = append(rowEnds, rowCount++, count);
+        }
+        setTiles(parsed, rowEnds, rowCount);
+    }
+
+    // Stores value at index, growing the array first if it's full
+    private static byte[] append(byte[] array, int index, byte value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    private static byte tileFor(int tokenChar, int tokenLength) {
+        if (tokenLength == 1) {
+            switch (tokenChar) {
+                case 'W':
+                    return Utilities.WALL;
+                case 'G':
+                    return Utilities.GRASS;
+                case 'M':
+                    return Utilities.MUD;
+            }
+        }
+        return -1; // unknown
+    }
+
+    private void readBinary(ByteBuffer data) throws IOException {
+        if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC) {
+            throw new IOException("Not a binary map");
+        }
+        short version = data.getShort();
+        if (version != VERSION) {
+            throw new IOException("Binary map version " + version + ", expected " + VERSION);
+        }
+        int width = data.getInt();
+        int height = data.getInt();
+        long size = (long) width * height;
+        if (width < 0 || height < 0 || size > Integer.MAX_VALUE || data.remaining() < (size + 3) / 4) {
+            throw new IOException("Binary map is truncated or corrupt");
+        }
+        byte[] unpacked = new byte[(int) size];
+        int base = data.position();
+        for (int i = 0; i < unpacked.length; i += 4) {
+            int packed = data.get(base + i / 4);
+            for (int j = 0; j < 4 && i + j < unpacked.length; j++) {
+                int code = (packed >> (j * 2)) & 3;
+                unpacked[i + j] = (byte) (code == UNKNOWN_CODE ? -1 : code);
+            }
+        }
+        tiles = unpacked;
+        cols = width;
+        rows = height;
+    }
+
+    // Maps a resource file into memory, or reads it in if it's inside a jar
+    private static ByteBuffer mapResource(URL url) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return mapFile(Paths.get(url.toURI()));
+            } catch (URISyntaxException e) {
+                // Fall through and read it as a stream
+            }
+        }
+        try (InputStream in = url.openStream()) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    private static ByteBuffer mapFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Packs parsed rows into the flat array. The first row sets the width; short rows are padded with unknown tiles
+    private void setTiles(byte[] parsed, int[] rowEnds, int rowCount) {
+        rows = rowCount;
+        cols = rows > 0 ? rowEnds[0] : 0;
+        if (isRectangular(rowEnds, rowCount)) {
+            tiles = Arrays.copyOf(parsed, rows * cols);
             return;
         }
+        tiles = new byte[rows * cols];
+        Arrays.fill(tiles, (byte) -1);
+        for (int r = 0; r < rows; r++) {
+            int start = r > 0 ? rowEnds[r - 1] : 0;
+            System.arraycopy(parsed, start, tiles, r * cols, Math.min(cols, rowEnds[r] - start));
+        }
+    }
 
-        try (BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] tokens = line.trim().split("\\s+");
-                int[] row = new int[tokens.length];
-                for (int i = 0; i < tokens.length; i++) {
-                    switch (tokens[i]) {
-                        case "W":
-                            row[i] = Utilities.WALL;
-                            break;
-                        case "G":
-                            row[i] = Utilities.GRASS;
-                            break;
-                        case "M":
-                            row[i] = Utilities.MUD;
-                            break;
-                        default:
-                            row[i] = -1; // unknown
+    private boolean isRectangular(int[] rowEnds, int rowCount) {
+        for (int r = 0; r < rowCount; r++) {
+            if (rowEnds[r] != (r + 1) * cols) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Saves the map to disk, in the binary format if the file name ends in .map and
+     * as text otherwise. Unknown tiles are written to text as "?".
+     */
+    public void write(Path file) throws IOException {
+        if (file.toString().endsWith(BINARY_EXTENSION)) {
+            ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + (tiles.length + 3) / 4);
+            out.putInt(MAGIC).putShort(VERSION).putInt(cols).putInt(rows);
+            for (int i = 0; i < tiles.length; i += 4) {
+                int packed = 0;
+                for (int j = 0; j < 4 && i + j < tiles.length; j++) {
+                    int tile = tiles[i + j];
+                    packed |= (tile >= 0 && tile < UNKNOWN_CODE ? tile : UNKNOWN_CODE) << (j * 2);
+                }
+                out.put((byte) packed);
+            }
+            Files.write(file, out.array());
+        } else {
+            StringBuilder text = new StringBuilder(tiles.length * 2);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (c > 0) {
+                        text.append(' ');
                     }
+                    int tile = tiles[r * cols + c];
+                    text.append(tile == Utilities.WALL ? 'W' : tile == Utilities.GRASS ? 'G' : tile == Utilities.MUD ? 'M' : '?');
                 }
-                rows.add(row);
+                text.append('\n');
             }
-            tiles = rows.toArray(new int[rows.size()][]);
+            Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * Converts maps between the text and binary formats, e.g.
+     * java bcc.javaJostle.Map maps/Arena.txt maps/Arena.map
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: Map <input .txt or .map> <output .txt or .map>");
+            System.exit(1);
+        }
+        try {
+            Map map = read(Paths.get(args[0]));
+            map.write(Paths.get(args[1]));
+            System.out.println("Wrote " + map.width() + "x" + map.height() + " map to " + args[1]);
         } catch (IOException e) {
-            e.printStackTrace();
-            tiles = new int[0][0]; // Initialize to empty if loading fails
+            System.err.println("Could not convert " + args[0] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void buildWallDistances() {
+        clearEast = new byte[rows * cols];
+        clearWest = new byte[rows * cols];
+        clearNorth = new byte[rows * cols];
+        clearSouth = new byte[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = cols - 1; c >= 0; c--) {
+                clearEast[r * cols + c] = (byte) (c + 1 < cols ? clearAfter(r * cols + c + 1, clearEast) : 0);
+            }
+            for (int c = 0; c < cols; c++) {
+                clearWest[r * cols + c] = (byte) (c > 0 ? clearAfter(r * cols + c - 1, clearWest) : 0);
+            }
+        }
+        for (int c = 0; c < cols; c++) {
+            for (int r = rows - 1; r >= 0; r--) {
+                clearSouth[r * cols + c] = (byte) (r + 1 < rows ? clearAfter((r + 1) * cols + c, clearSouth) : 0);
+            }
+            for (int r = 0; r < rows; r++) {
+                clearNorth[r * cols + c] = (byte) (r > 0 ? clearAfter((r - 1) * cols + c, clearNorth) : 0);
+            }
+        }
+    }
+
+    private void findGrass() {
+        int count = 0;
+        for (byte tile : tiles) {
+            if (tile == Utilities.GRASS) {
+                count++;
+            }
+        }
+        grassTiles = new int[count];
+        count = 0;
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] == Utilities.GRASS) {
+                grassTiles[count++] = i;
+            }
+        }
+    }
+
+    // The clear count for a tile whose neighbour in that direction is at next
+    private int clearAfter(int next, byte[] clear) {
+        if (tiles[next] == Utilities.WALL) {
+            return 0;
+        }
+        return Math.min(MAX_CLEAR_TILES, clear[next] + 1);
+    }
+
+    /**
+     * Counts the non-wall tiles after (col, row) in direction (dCol, dRow), one of
+     * the four cardinal unit steps, before reaching a wall or the edge of the map.
+     * The count is capped at MAX_CLEAR_TILES.
+     */
+    public int clearTiles(int col, int row, int dCol, int dRow) {
+        int index = row * cols + col;
+        if (dCol > 0) {
+            return clearEast[index];
+        } else if (dCol < 0) {
+            return clearWest[index];
+        } else if (dRow > 0) {
+            return clearSouth[index];
+        } else {
+            return clearNorth[index];
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Number of tile columns
+    public int width() {
+        return cols;
+    }
+
+    // Number of tile rows
+    public int height() {
+        return rows;
+    }
+
+    public boolean isEmpty() {
+        return cols == 0 || rows == 0;
+    }
+
+    public boolean inBounds(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows;
+    }
+
+    // The tile type at (col, row), or -1 outside the map
+    public int tileAt(int col, int row) {
+        if (!inBounds(col, row)) {
+            return -1;
+        }
+        return tiles[row * cols + col];
+    }
+
+    // True for wall tiles and for anything outside the map, which is just as impassable
+    public boolean isWallTile(int col, int row) {
+        return !inBounds(col, row) || tiles[row * cols + col] == Utilities.WALL;
+    }
+
+    // True if the pixel (px, py) is in a wall tile or outside the map
+    public boolean isWall(int px, int py) {
+        if (px < 0 || py < 0) {
+            return true;
         }
+        return isWallTile(px / Utilities.TILE_SIZE, py / Utilities.TILE_SIZE);
     }
 
+    public int grassTileCount() {
+        return grassTiles.length;
+    }
+
+    // The i-th grass tile in row-major order, as row * width() + col
+    public int grassTile(int i) {
+        return grassTiles[i];
+    }
+
+    /**
+     * The map as a [row][col] array. The engine doesn't use this, it is here for
+     * robots; prefer tileAt() which doesn't build anything. On the map a game hands
+     * its robots the array is built on the first call and shared by that game's
+     * robots after that, so don't change it; no other game ever sees it. A shared map
+     * from MapRegistry builds a new array every call. Two robots asking at once may
+     * both build it; either copy will do.
+     */
     public int[][] getTiles() {
-        return tiles;
+        int[][] grid = tileGrid;
+        if (grid == null) {
+            grid = new int[rows][cols];
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    grid[r][c] = tiles[r * cols + c];
+                }
+            }
+            if (perGame) {
+                tileGrid = grid;
+            }
+        }
+        return grid;
     }
 
+    // Draws each visible tile straight to the screen. MapRenderer caches them in chunks instead
     public void display(Graphics g, int panelWidth, int panelHeight, int cameraX, int cameraY, double zoomFactor) {
-        if (tiles == null || tiles.length == 0) {
+        if (isEmpty()) {
             return;
         }
-        int rows = tiles.length;
-        int cols = tiles[0].length;
-
         double currentTileSize = Utilities.TILE_SIZE * zoomFactor;
 
         // Calculate the range of tiles to draw based on camera and zoom
@@ -80,34 +502,27 @@ public class Map {
 
         for (int r = startRow; r < endRow; r++) {
             for (int c = startCol; c < endCol; c++) {
-                int tileType = tiles[r][c];
-                if (tileType != -1) {
+                BufferedImage img = tileImage(tiles[r * cols + c]);
+                if (img != null) {
                     // Calculate screen position of the tile
                     double x = (c * currentTileSize) - cameraX;
                     double y = (r * currentTileSize) - cameraY;
-
-                    // No need for an additional check here as the loop bounds already handle culling.
-                    // The previous check was:
-                    // if (x + currentTileSize > 0 && x < panelWidth && y + currentTileSize > 0 && y < panelHeight) {
-                    java.awt.Image img = null;
-                    switch (tileType) {
-                        case Utilities.WALL:
-                            img = Utilities.WALL_IMAGE;
-                            break;
-                        case Utilities.GRASS:
-                            img = Utilities.GRASS_IMAGE;
-                            break;
-                        case Utilities.MUD:
-                            img = Utilities.MUD_IMAGE;
-                            break;
-                    }
-                    if (img != null) {
-                        // Draw the image at the calculated screen position
-                        g.drawImage(img, (int) x, (int) y, (int) currentTileSize, (int) currentTileSize, null);
-                    }
-                    // }
+                    g.drawImage(img, (int) x, (int) y, (int) currentTileSize, (int) currentTileSize, null);
                 }
             }
         }
     }
-}
\ No newline at end of file
+
+    static BufferedImage tileImage(int tileType) {
+        switch (tileType) {
+            case Utilities.WALL:
+                return Utilities.WALL_IMAGE;
+            case Utilities.GRASS:
+                return Utilities.GRASS_IMAGE;
+            case Utilities.MUD:
+                return Utilities.MUD_IMAGE;
+            default:
+                return null;
+        }
+    }
+}
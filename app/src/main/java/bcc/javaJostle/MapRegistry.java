@@ -0,0 +1,80 @@
+package bcc.javaJostle;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads each map once and shares it.
+ *
+ * Maps don't change after loading, so the same instance can back every game on
+ * that map, including games running in parallel. Call reload() after the map files
+ * change.
+ */
+public class MapRegistry {
+    private static final String MAPS_RESOURCE = "/maps";
+
+    private static final ConcurrentHashMap<String, Map> maps = new ConcurrentHashMap<>();
+
+    private MapRegistry() {
+    }
+
+    // The shared map with this name, loaded the first time it is asked for
+    public static Map get(String name) {
+        return maps.computeIfAbsent(name, Map::new);
+    }
+
+    // Forgets every loaded map so the next get() reads the file again
+    public static void reload() {
+        maps.clear();
+    }
+
+    // The names of all maps in resources/maps, text or binary, sorted
+    public static List<String> names() {
+        TreeSet<String> names = new TreeSet<>();
+        URL url = Map.class.getResource(MAPS_RESOURCE);
+        if (url == null) {
+            return new ArrayList<>();
+        }
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                // Packaged with installDist: list the maps inside the jar
+                try (FileSystem jar = FileSystems.newFileSystem(uri, Collections.emptyMap())) {
+                    addNames(jar.getPath(MAPS_RESOURCE), names);
+                } catch (FileSystemAlreadyExistsException e) {
+                    addNames(FileSystems.getFileSystem(uri).getPath(MAPS_RESOURCE), names);
+                }
+            } else {
+                addNames(Paths.get(uri), names);
+            }
+        } catch (IOException | URISyntaxException e) {
+            System.err.println("Could not list maps in " + url + ": " + e.getMessage());
+        }
+        return new ArrayList<>(names);
+    }
+
+    private static void addNames(Path directory, TreeSet<String> names) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(Map.TEXT_EXTENSION) || fileName.endsWith(Map.BINARY_EXTENSION)) {
+                    names.add(fileName.substring(0, fileName.lastIndexOf('.')));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package bcc.javaJostle;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+
+/**
+ * Draws a map for one view, such as a game panel or a replay window. Tiles never
+ * change, so they are rendered into chunk images once per zoom level and each
+ * repaint just copies the visible chunks. The chunks belong to the renderer, not
+ * the Map, so views of the same shared map at different zooms keep their own.
+ */
+class MapRenderer {
+    // Chunks are square and about this many pixels across. Past this tile size there
+    // are so few tiles on screen that they are drawn one by one instead
+    private static final int CHUNK_PIXELS = 256;
+    // Enough chunks for a few screens; the least recently drawn go first
+    private static final int MAX_CACHED_CHUNKS = 96;
+
+    private final Map map;
+
+    // Rendered chunks for the zoom level last displayed, keyed by chunkRow * chunkCols + chunkCol
+    private final LinkedHashMap<Integer, BufferedImage> chunkCache = new LinkedHashMap<Integer, BufferedImage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<Integer, BufferedImage> eldest) {
+            return size() > MAX_CACHED_CHUNKS;
+        }
+    };
+    private double chunkTileSize = -1; // The tile size in pixels the cached chunks were drawn at
+    private int chunkTiles; // Tiles along each side of a chunk
+    private int chunkCols;
+
+    MapRenderer(Map map) {
+        this.map = map;
+    }
+
+    // Draws the visible part of the map. Only call this from one thread, the one painting the view
+    void display(Graphics g, int panelWidth, int panelHeight, int cameraX, int cameraY, double zoomFactor) {
+        if (map.isEmpty()) {
+            return;
+        }
+
+        double currentTileSize = Utilities.TILE_SIZE * zoomFactor;
+        if (currentTileSize > CHUNK_PIXELS) {
+            map.display(g, panelWidth, panelHeight, cameraX, cameraY, zoomFactor);
+            return;
+        }
+        if (currentTileSize != chunkTileSize) {
+            // A new zoom level; everything has to be drawn again at the new size
+            chunkCache.clear();
+            chunkTileSize = currentTileSize;
+            chunkTiles = Math.max(1, (int) (CHUNK_PIXELS / currentTileSize));
+            chunkCols = (map.width() + chunkTiles - 1) / chunkTiles;
+        }
+
+        // Calculate the range of chunks to draw based on camera and zoom
+        double chunkSize = chunkTiles * currentTileSize;
+        int chunkRows = (map.height() + chunkTiles - 1) / chunkTiles;
+        int startCol = Math.max(0, (int) Math.floor(cameraX / chunkSize));
+        int endCol = Math.min(chunkCols, (int) Math.ceil((cameraX + panelWidth) / chunkSize));
+        int startRow = Math.max(0, (int) Math.floor(cameraY / chunkSize));
+        int endRow = Math.min(chunkRows, (int) Math.ceil((cameraY + panelHeight) / chunkSize));
+
+        for (int r = startRow; r < endRow; r++) {
+            for (int c = startCol; c < endCol; c++) {
+                BufferedImage chunk = chunkCache.get(r * chunkCols + c);
+                if (chunk == null) {
+                    chunk = renderChunk(c * chunkTiles, r * chunkTiles, currentTileSize);
+                    chunkCache.put(r * chunkCols + c, chunk);
+                }
+                // Chunks start on the same whole pixel their first tile would have
+                g.drawImage(chunk, (int) (c * chunkTiles * currentTileSize) - cameraX,
+                        (int) (r * chunkTiles * currentTileSize) - cameraY, null);
+            }
+        }
+    }
+
+    // Draws the tiles of one chunk, whose top-left tile is (firstCol, firstRow), into a new image
+    private BufferedImage renderChunk(int firstCol, int firstRow, double tileSize) {
+        int lastCol = Math.min(map.width(), firstCol + chunkTiles);
+        int lastRow = Math.min(map.height(), firstRow + chunkTiles);
+        int originX = (int) (firstCol * tileSize);
+        int originY = (int) (firstRow * tileSize);
+        int width = Math.max(1, (int) (lastCol * tileSize) - originX);
+        int height = Math.max(1, (int) (lastRow * tileSize) - originY);
+        BufferedImage chunk = GraphicsEnvironment.isHeadless()
+                ? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                        .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        Graphics2D g = chunk.createGraphics();
+        for (int r = firstRow; r < lastRow; r++) {
+            for (int c = firstCol; c < lastCol; c++) {
+                BufferedImage img = Map.tileImage(map.tileAt(c, r));
+                if (img != null) {
+                    // Each tile runs up to where the next one starts, so there are no seams
+                    int x = (int) (c * tileSize);
+                    int y = (int) (r * tileSize);
+                    g.drawImage(img, x - originX, y - originY, (int) ((c + 1) * tileSize) - x,
+                            (int) ((r + 1) * tileSize) - y, null);
+                }
+            }
+        }
+        g.dispose();
+        return chunk;
+    }
+}
@@ -0,0 +1,56 @@
+package bcc.javaJostle;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs thinks on long-lived worker threads instead of creating a thread per
+ * robot per tick. Workers are reused once their think finishes; a think that
+ * ignores its interrupt keeps its worker busy, and the pool simply starts
+ * another one so other robots are never starved. Idle workers exit after a
+ * minute, and all workers are daemon threads so they never keep the JVM alive.
+ */
+public class PooledThinkExecutor implements ThinkExecutor {
+    private static final long IDLE_WORKER_TIMEOUT_SECONDS = 60;
+
+    private final ExecutorService pool;
+
+    public PooledThinkExecutor() {
+        AtomicInteger workerCount = new AtomicInteger();
+        pool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, IDLE_WORKER_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+                    Thread worker = new Thread(r, "RobotThinkWorker-" + workerCount.incrementAndGet());
+                    worker.setDaemon(true);
+                    return worker;
+                });
+    }
+
+    @Override
+    public boolean run(String name, Runnable task, long timeLimitMs, long graceMs) throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+        Future<?> future = pool.submit(() -> {
+            try {
+                task.run();
+            } finally {
+                finished.countDown();
+            }
+        });
+
+        if (finished.await(timeLimitMs, TimeUnit.MILLISECONDS)) {
+            return true;
+        }
+        // Timed out: interrupt the worker and give it a moment to stop
+        future.cancel(true);
+        finished.await(graceMs, TimeUnit.MILLISECONDS);
+        return false;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -1,6 +1,7 @@
 package bcc.javaJostle;
 
 import java.awt.image.BufferedImage;
+import java.util.Random;
 
 
 public class PowerUp {
@@ -9,26 +10,41 @@ public class PowerUp {
     private double y;
     private String type;
     public PowerUp(double x, double y) {
-        double r = Math.random();
+        this(x, y, new Random());
+    }
+
+    // The type is rolled from the given generator so games can be replayed from a seed
+    public PowerUp(double x, double y, Random random) {
+        double r = random.nextDouble();
         if(r < .33) {
             this.type = "health";
-            this.image = Utilities.loadImage("healthPack.png");
         } else if(r < .66) {
             this.type = "speed";
-            this.image = Utilities.loadImage("speedPack.png");
         } else {
             this.type = "attack";
-            this.image = Utilities.loadImage("attackPack.png");
         } 
+        this.image = imageFor(type);
         this.x = x;
         this.y = y;
     }
 
-    public double getX() { // Returns tile X
+    // The picture drawn for a power-up of the given type
+    static BufferedImage imageFor(String type) {
+        switch (type) {
+            case "health":
+                return Utilities.HEALTH_PACK_IMAGE;
+            case "speed":
+                return Utilities.SPEED_PACK_IMAGE;
+            default:
+                return Utilities.ATTACK_PACK_IMAGE;
+        }
+    }
+
+    public double getX() { // Pixel X of the top-left corner
         return x;
     }
 
-    public double getY() { // Returns tile Y
+    public double getY() { // Pixel Y of the top-left corner
         return y;
     }
 
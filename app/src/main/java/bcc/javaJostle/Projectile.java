@@ -1,164 +1,80 @@
 package bcc.javaJostle;
 
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 
+/**
+ * A read-only look at one projectile. The game keeps its projectiles in a
+ * ProjectileStore; a Projectile shows whatever is in one slot of it.
+ *
+ * A Projectile is only good for the tick it was handed out in. Slots are reused,
+ * so one kept until a later tick doesn't follow its shot: it silently reports
+ * whichever projectile is in that slot now, or isAlive() is false if none is. To
+ * follow a shot from tick to tick, remember its getId() and look for that id in
+ * the next tick's list; a kept Projectile whose getId() has changed is stale.
+ */
 public class Projectile {
-    private double x;
-    private double y;
-    // private double speed; // Replaced by projectileSpeed
-    private double angle; // Will be calculated
-    private Robot owner;
-    private boolean alive = true;
-
-    // New fields based on the constructor
-    private int projectileSpeed;
-    private int projectileDamage;
-    private BufferedImage projectileImage;
-
-    public Projectile(double x, double y, int xTarget, int yTarget, int projectileSpeed, int projectileDamage,
-            BufferedImage projectileImage, Robot owner) {
-        this.x = x;
-        this.y = y;
-        this.projectileSpeed = projectileSpeed;
-        this.projectileDamage = projectileDamage;
-        this.projectileImage = projectileImage;
-        this.owner = owner;
-
-        // Calculate the angle towards the target
-        this.angle = Math.atan2(yTarget - this.y, xTarget - this.x);
-    }
+    private final ProjectileStore store;
+    private final int slot;
 
-    public void update(Game game) {
-        if (!alive) {
-            return; // Do nothing if already destroyed
-        }
-
-        int subSteps = 5; // Number of steps to break the movement into for collision detection
-        double totalDx = this.projectileSpeed * Math.cos(this.angle);
-        double totalDy = this.projectileSpeed * Math.sin(this.angle);
-
-        double subStepDx = totalDx / subSteps;
-        double subStepDy = totalDy / subSteps;
-
-        for (int i = 0; i < subSteps; i++) {
-            if (!alive)
-                break; // Stop if destroyed in a previous sub-step
-
-            double currentProjectileX = x + subStepDx;
-            double currentProjectileY = y + subStepDy;
-
-            // Define the four corners of the projectile for collision detection
-            // Top-left is (currentProjectileX, currentProjectileY)
-            // Top-right is (currentProjectileX + PROJECTILE_SIZE -1, currentProjectileY)
-            // Bottom-left is (currentProjectileX, currentProjectileY + PROJECTILE_SIZE -1)
-            // Bottom-right is (currentProjectileX + PROJECTILE_SIZE -1, currentProjectileY + PROJECTILE_SIZE -1)
-            // We will check these points. Note: PROJECTILE_SIZE is the dimension.
-            // For tile checking, we care about any point within the projectile's area.
-            // For robot checking, we'll use AABB intersection.
-
-            // 1. Wall Collision Check
-            Map map = game.getMap();
-            if (map != null && map.getTiles() != null && map.getTiles().length > 0 && map.getTiles()[0].length > 0) {
-                // Points to check for wall collision (corners of the projectile)
-                double[] pX = {
-                    currentProjectileX, 
-                    currentProjectileX + Utilities.PROJECTILE_SIZE -1, 
-                    currentProjectileX, 
-                    currentProjectileX + Utilities.PROJECTILE_SIZE -1
-                };
-                double[] pY = {
-                    currentProjectileY, 
-                    currentProjectileY, 
-                    currentProjectileY + Utilities.PROJECTILE_SIZE -1, 
-                    currentProjectileY + Utilities.PROJECTILE_SIZE -1
-                };
-
-                for (int corner = 0; corner < 4; corner++) {
-                    int tileCol = (int) (pX[corner] / Utilities.TILE_SIZE);
-                    int tileRow = (int) (pY[corner] / Utilities.TILE_SIZE);
-
-                    // Check map boundaries and wall collision for each corner
-                    if (tileRow < 0 || tileRow >= map.getTiles().length ||
-                            tileCol < 0 || tileCol >= map.getTiles()[0].length ||
-                            map.getTiles()[tileRow][tileCol] == Utilities.WALL) {
-                        this.destroy();
-                        return; // Projectile is destroyed, stop further processing
-                    }
-                }
-            }
-
-            // 2. Robot Collision Check (AABB Intersection)
-            ArrayList<Robot> robots = game.getRobots();
-            if (robots != null) {
-                for (Robot robot : robots) {
-                    if (robot.isAlive() && robot != this.owner) {
-                        double robotX = robot.getX();
-                        double robotY = robot.getY();
-                        
-                        // Projectile's bounding box
-                        double projX1 = currentProjectileX;
-                        double projY1 = currentProjectileY;
-                        double projX2 = currentProjectileX + Utilities.PROJECTILE_SIZE;
-                        double projY2 = currentProjectileY + Utilities.PROJECTILE_SIZE;
-
-                        // Robot's bounding box
-                        double robX1 = robotX;
-                        double robY1 = robotY;
-                        double robX2 = robotX + Utilities.ROBOT_SIZE;
-                        double robY2 = robotY + Utilities.ROBOT_SIZE;
-
-                        // Check for AABB intersection
-                        if (projX1 < robX2 && projX2 > robX1 &&
-                            projY1 < robY2 && projY2 > robY1) {
-                            
-                            robot.takeDamage(this.projectileDamage);
-                            this.destroy();
-                            return; // Projectile is destroyed, stop further processing
-                        }
-                    }
-                }
-            }
-
-            // If no collision in this sub-step, update position
-            x = currentProjectileX;
-            y = currentProjectileY;
-        }
+    Projectile(ProjectileStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
     }
 
-    public void destroy() {
-        this.alive = false;
+    // Unique within a game, in the order the projectiles were fired
+    public int getId() {
+        return store.id(slot);
     }
 
     public double getX() {
-        return x;
+        return store.x(slot);
     }
 
     public double getY() {
-        return y;
+        return store.y(slot);
     }
 
-    // Getter for the calculated angle
+    // Direction of travel in radians
     public double getAngle() {
-        return angle;
+        return store.angle(slot);
+    }
+
+    // How far it moves each tick along x and y, in pixels
+    public double getVelocityX() {
+        return store.velocityX(slot);
+    }
+
+    public double getVelocityY() {
+        return store.velocityY(slot);
     }
 
     public Robot getOwner() {
-        return owner;
+        return store.ownerRobot(slot);
+    }
+
+    // The owner's index in the game's robot list
+    int getOwnerIndex() {
+        return store.owner(slot);
     }
 
     public int getProjectileSpeed() {
-        return projectileSpeed;
+        return store.speed(slot);
     }
 
     public int getProjectileDamage() {
-        return projectileDamage;
+        return store.damage(slot);
     }
 
     public BufferedImage getProjectileImage() {
-        return projectileImage;
+        Robot owner = getOwner();
+        return owner != null ? owner.getProjectileImage() : Utilities.DEFAULT_PROJECTILE_IMAGE;
+    }
+
+    public void destroy() {
+        store.destroy(slot);
     }
+
     public boolean isAlive() {
-        return alive;
+        return store.alive(slot);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,570 @@
+package bcc.javaJostle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Every projectile in one game, kept as parallel arrays of primitives instead of
+ * one object per shot.
+ *
+ * Projectiles live in slots 0 .. size() - 1 in the order they were fired. Spawning
+ * fills the next slot, and removeDead() slides the survivors down over the dead
+ * ones, so once the arrays have grown to the busiest moment of the game, firing,
+ * moving and removing projectiles allocates nothing.
+ *
+ * Robots still see an ArrayList of Projectile objects; each one is a fixed view of
+ * one slot, made once and reused for as long as the game lasts. The list itself is
+ * refilled from the slots every time it is handed out, so changing it does nothing.
+ * What the projectiles hit in the last tick is kept the same way, as Impact views.
+ */
+class ProjectileStore {
+    private static final int SUB_STEPS = 5; // Movement is split up this much for collision detection
+
+    private final Game game;
+    private int count = 0;
+    private int nextId = 0;
+
+    private int[] id = new int[64];
+    private int[] owner = new int[64]; // index in the game's robot list, -1 if not from one of its robots
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private double[] angle = new double[64];
+    private double[] dirX = new double[64]; // cos(angle) and sin(angle), worked out once when fired
+    private double[] dirY = new double[64];
+    private int[] speed = new int[64];
+    private int[] damage = new int[64];
+    private boolean[] alive = new boolean[64];
+
+    private final ArrayList<Projectile> slotViews = new ArrayList<>(); // slotViews.get(i) always shows slot i
+    private final ArrayList<Projectile> handedOut = new ArrayList<>(); // What projectiles() last returned
+
+    // What the projectiles hit during the last updateAll(), in the order they hit
+    private int impactCount = 0;
+    private int[] impactId = new int[16]; // The projectile's id
+    private int[] impactOwner = new int[16];
+    private int[] impactRobot = new int[16]; // Index of the robot hit, -1 for a wall
+    private double[] impactX = new double[16]; // The projectile's top-left corner when it hit
+    private double[] impactY = new double[16];
+    private double[] impactTime = new double[16]; // How far through the tick, 0 to 1
+    private final ArrayList<Impact> impactViews = new ArrayList<>();
+    private final ArrayList<Impact> impactsHandedOut = new ArrayList<>();
+
+    ProjectileStore(Game game) {
+        this.game = game;
+    }
+
+    // Fires a projectile from (x, y) towards (xTarget, yTarget)
+    synchronized void spawn(int owner, double x, double y, int xTarget, int yTarget, int speed, int damage) {
+        if (count == id.length) {
+            grow();
+        }
+        int slot = count++;
+        this.id[slot] = nextId++;
+        this.owner[slot] = owner;
+        this.x[slot] = x;
+        this.y[slot] = y;
+        this.angle[slot] = Math.atan2(yTarget - y, xTarget - x);
+        this.dirX[slot] = Math.cos(this.angle[slot]);
+        this.dirY[slot] = Math.sin(this.angle[slot]);
+        this.speed[slot] = speed;
+        this.damage[slot] = damage;
+        this.alive[slot] = true;
+        if (slotViews.size() == slot) {
+            slotViews.add(new Projectile(this, slot));
+        }
+    }
+
+    private void grow() {
+        int capacity = id.length * 2;
+        id = Arrays.copyOf(id, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        angle = Arrays.copyOf(angle, capacity);
+        dirX = Arrays.copyOf(dirX, capacity);
+        dirY = Arrays.copyOf(dirY, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        damage = Arrays.copyOf(damage, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+    }
+
+    // Notes that projectile i hit the robot at robotIndex (-1 for a wall) at (atX, atY), time of the way through the tick
+    private void recordImpact(int i, int robotIndex, double atX, double atY, double time) {
+        if (impactCount == impactId.length) {
+            int capacity = impactCount * 2;
+            impactId = Arrays.copyOf(impactId, capacity);
+            impactOwner = Arrays.copyOf(impactOwner, capacity);
+            impactRobot = Arrays.copyOf(impactRobot, capacity);
+            impactX = Arrays.copyOf(impactX, capacity);
+            impactY = Arrays.copyOf(impactY, capacity);
+            impactTime = Arrays.copyOf(impactTime, capacity);
+        }
+        int impact = impactCount++;
+        impactId[impact] = id[i];
+        impactOwner[impact] = owner[i];
+        impactRobot[impact] = robotIndex;
+        impactX[impact] = atX;
+        impactY[impact] = atY;
+        impactTime[impact] = time;
+        if (impactViews.size() == impact) {
+            impactViews.add(new Impact(this, impact));
+        }
+    }
+
+    // Moves every live projectile one tick, destroying those that hit a wall or a robot
+    synchronized void updateAll() {
+        Map map = game.getMap();
+        ArrayList<Robot> robots = game.getRobots();
+        SpatialGrid robotGrid = game.getRobotGrid();
+        boolean continuous = game.isContinuousProjectiles();
+        impactCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (continuous) {
+                updateContinuous(i, map, robots, robotGrid);
+            } else {
+                update(i, map, robots, robotGrid);
+            }
+        }
+    }
+
+    private void update(int i, Map map, ArrayList<Robot> robots, SpatialGrid robotGrid) {
+        if (!alive[i]) {
+            return; // Do nothing if already destroyed
+        }
+
+        double totalDx = speed[i] * dirX[i];
+        double totalDy = speed[i] * dirY[i];
+
+        double subStepDx = totalDx / SUB_STEPS;
+        double subStepDy = totalDy / SUB_STEPS;
+
+        // When the whole path for this tick is clear of walls the per-sub-step wall checks can't fail
+        boolean pathClear = isPathClear(map, x[i], y[i], totalDx, totalDy);
+        boolean checkWalls = !pathClear && map != null && !map.isEmpty();
+
+        // The tiles under the corners at the last sub-step, which were all clear. At a few
+        // pixels a sub-step they are usually the same tiles again and need no second look
+        boolean haveClear = false;
+        int clearLeft = 0, clearRight = 0, clearTop = 0, clearBottom = 0;
+
+        for (int step = 0; step < SUB_STEPS; step++) {
+            double currentX = x[i] + subStepDx;
+            double currentY = y[i] + subStepDy;
+
+            // 1. Wall collision: any of the projectile's four corners in a wall tile
+            if (checkWalls) {
+                int left = (int) (currentX / Utilities.TILE_SIZE);
+                int right = (int) ((currentX + Utilities.PROJECTILE_SIZE - 1) / Utilities.TILE_SIZE);
+                int top = (int) (currentY / Utilities.TILE_SIZE);
+                int bottom = (int) ((currentY + Utilities.PROJECTILE_SIZE - 1) / Utilities.TILE_SIZE);
+                if (!haveClear || left != clearLeft || right != clearRight || top != clearTop
+                        || bottom != clearBottom) {
+                    if (cornersHitWall(map, left, right, top, bottom)) {
+                        alive[i] = false;
+                        recordImpact(i, -1, currentX, currentY, (step + 1) / (double) SUB_STEPS);
+                        return;
+                    }
+                    haveClear = true;
+                    clearLeft = left;
+                    clearRight = right;
+                    clearTop = top;
+                    clearBottom = bottom;
+                }
+            }
+
+            // 2. Robot collision (AABB intersection)
+            if (robots != null) {
+                if (robotGrid != null) {
+                    // Only the robots sharing a cell with the projectile can be hit
+                    int candidates = robotGrid.query(currentX, currentY, currentX + Utilities.PROJECTILE_SIZE,
+                            currentY + Utilities.PROJECTILE_SIZE);
+                    for (int k = 0; k < candidates; k++) {
+                        int robotIndex = robotGrid.result(k);
+                        if (hitRobot(i, robotIndex, robots.get(robotIndex), currentX, currentY)) {
+                            recordImpact(i, robotIndex, currentX, currentY, (step + 1) / (double) SUB_STEPS);
+                            return;
+                        }
+                    }
+                } else {
+                    for (int robotIndex = 0; robotIndex < robots.size(); robotIndex++) {
+                        if (hitRobot(i, robotIndex, robots.get(robotIndex), currentX, currentY)) {
+                            recordImpact(i, robotIndex, currentX, currentY, (step + 1) / (double) SUB_STEPS);
+                            return;
+                        }
+                    }
+                }
+            }
+
+            // If no collision in this sub-step, update position
+            x[i] = currentX;
+            y[i] = currentY;
+        }
+    }
+
+    /**
+     * Moves projectile i along its whole path for the tick at once. The walls are found
+     * by walking the tiles each corner passes through, and the robots by intersecting
+     * the path with each robot's box grown by the projectile's size, so the work is
+     * proportional to the distance travelled and nothing can be jumped over. Whatever
+     * is reached first is hit, a wall winning a tie as it does with sub-steps; the
+     * projectile stops where it hit.
+     */
+    private void updateContinuous(int i, Map map, ArrayList<Robot> robots, SpatialGrid robotGrid) {
+        if (!alive[i]) {
+            return;
+        }
+        double dx = speed[i] * dirX[i];
+        double dy = speed[i] * dirY[i];
+
+        double hitTime = map != null && !map.isEmpty() ? wallHitTime(map, x[i], y[i], dx, dy) : Double.NaN;
+        int hitRobot = -1;
+        if (robots != null) {
+            if (robotGrid != null) {
+                // Every robot the path could touch shares a cell with the box around the whole path
+                int candidates = robotGrid.query(Math.min(x[i], x[i] + dx), Math.min(y[i], y[i] + dy),
+                        Math.max(x[i], x[i] + dx) + Utilities.PROJECTILE_SIZE,
+                        Math.max(y[i], y[i] + dy) + Utilities.PROJECTILE_SIZE);
+                for (int k = 0; k < candidates; k++) {
+                    int robotIndex = robotGrid.result(k);
+                    double t = robotTime(i, robotIndex, robots.get(robotIndex), dx, dy);
+                    if (t < hitTime || Double.isNaN(hitTime) && !Double.isNaN(t)) {
+                        hitTime = t;
+                        hitRobot = robotIndex;
+                    }
+                }
+            } else {
+                for (int robotIndex = 0; robotIndex < robots.size(); robotIndex++) {
+                    double t = robotTime(i, robotIndex, robots.get(robotIndex), dx, dy);
+                    if (t < hitTime || Double.isNaN(hitTime) && !Double.isNaN(t)) {
+                        hitTime = t;
+                        hitRobot = robotIndex;
+                    }
+                }
+            }
+        }
+
+        if (Double.isNaN(hitTime)) {
+            x[i] += dx;
+            y[i] += dy;
+            return;
+        }
+        x[i] += dx * hitTime;
+        y[i] += dy * hitTime;
+        if (hitRobot >= 0) {
+            robots.get(hitRobot).takeDamage(damage[i]);
+        }
+        alive[i] = false;
+        recordImpact(i, hitRobot, x[i], y[i], hitTime);
+    }
+
+    // When projectile i moving by (dx, dy) this tick first overlaps the robot, or NaN if it doesn't
+    private double robotTime(int i, int robotIndex, Robot robot, double dx, double dy) {
+        if (!robot.isAlive() || robotIndex == owner[i]) {
+            return Double.NaN;
+        }
+        return robotHitTime(x[i], y[i], dx, dy, robot.getX(), robot.getY());
+    }
+
+    /**
+     * The fraction of the move from (x, y) by (dx, dy) at which a projectile there
+     * first overlaps a robot at (robotX, robotY), or NaN if it doesn't this tick. The
+     * projectile's corner has to be strictly inside the robot's box grown by the
+     * projectile's size, so boxes that only touch don't count, the same as the
+     * sub-step check.
+     */
+    static double robotHitTime(double x, double y, double dx, double dy, double robotX, double robotY) {
+        double enter = 0;
+        double exit = 1;
+        // x slab
+        double low = robotX - Utilities.PROJECTILE_SIZE;
+        double high = robotX + Utilities.ROBOT_SIZE;
+        if (dx == 0) {
+            if (x <= low || x >= high) {
+                return Double.NaN;
+            }
+        } else {
+            double t1 = (low - x) / dx;
+            double t2 = (high - x) / dx;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        // y slab
+        low = robotY - Utilities.PROJECTILE_SIZE;
+        high = robotY + Utilities.ROBOT_SIZE;
+        if (dy == 0) {
+            if (y <= low || y >= high) {
+                return Double.NaN;
+            }
+        } else {
+            double t1 = (low - y) / dy;
+            double t2 = (high - y) / dy;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+        if (enter >= exit) {
+            return Double.NaN; // Misses, only touches, or gets there after this tick
+        }
+        return enter;
+    }
+
+    /**
+     * The fraction of the move from (x, y) by (dx, dy) at which one of a projectile's
+     * corners first reaches a wall tile or leaves the map, or NaN if the path is clear.
+     * The projectile is smaller than a tile, so any wall tile it overlaps has one of its
+     * corners inside.
+     */
+    static double wallHitTime(Map map, double x, double y, double dx, double dy) {
+        int far = Utilities.PROJECTILE_SIZE - 1; // Corners are on the last pixel, as in the sub-step check
+        double first = cornerHitTime(map, x, y, dx, dy, 1);
+        first = earlier(first, cornerHitTime(map, x + far, y, dx, dy, limit(first)));
+        first = earlier(first, cornerHitTime(map, x, y + far, dx, dy, limit(first)));
+        return earlier(first, cornerHitTime(map, x + far, y + far, dx, dy, limit(first)));
+    }
+
+    // No later corner needs walking past the earliest hit so far
+    private static double limit(double first) {
+        return Double.isNaN(first) ? 1 : first;
+    }
+
+    private static double earlier(double a, double b) {
+        return Double.isNaN(b) || b >= a ? a : b;
+    }
+
+    // Walks the tiles the point (px, py) passes through moving by (dx, dy), one tile boundary at a
+    // time, and returns the fraction of the move at which it enters a wall tile, or NaN if it doesn't by limit
+    static double cornerHitTime(Map map, double px, double py, double dx, double dy, double limit) {
+        int col = (int) Math.floor(px / Utilities.TILE_SIZE);
+        int row = (int) Math.floor(py / Utilities.TILE_SIZE);
+        if (map.isWallTile(col, row)) {
+            return 0;
+        }
+        int stepCol = dx > 0 ? 1 : -1;
+        int stepRow = dy > 0 ? 1 : -1;
+        // Time of the next column and row boundary, and the time between boundaries
+        double nextCol = dx == 0 ? Double.POSITIVE_INFINITY
+                : ((dx > 0 ? col + 1 : col) * Utilities.TILE_SIZE - px) / dx;
+        double nextRow = dy == 0 ? Double.POSITIVE_INFINITY
+                : ((dy > 0 ? row + 1 : row) * Utilities.TILE_SIZE - py) / dy;
+        double colTime = dx == 0 ? Double.POSITIVE_INFINITY : Utilities.TILE_SIZE / Math.abs(dx);
+        double rowTime = dy == 0 ? Double.POSITIVE_INFINITY : Utilities.TILE_SIZE / Math.abs(dy);
+        while (true) {
+            double t;
+            if (nextCol < nextRow) {
+                t = nextCol;
+                col += stepCol;
+                nextCol += colTime;
+            } else {
+                t = nextRow;
+                row += stepRow;
+                nextRow += rowTime;
+            }
+            if (t > limit) {
+                return Double.NaN;
+            }
+            if (map.isWallTile(col, row)) {
+                return t;
+            }
+        }
+    }
+
+    // True if any corner tile is a wall. Corners sharing a tile (the common case) are only looked up once
+    private static boolean cornersHitWall(Map map, int left, int right, int top, int bottom) {
+        if (map.isWallTile(left, top)) {
+            return true;
+        }
+        boolean twoColumns = right != left;
+        if (twoColumns && map.isWallTile(right, top)) {
+            return true;
+        }
+        if (bottom != top) {
+            return map.isWallTile(left, bottom) || twoColumns && map.isWallTile(right, bottom);
+        }
+        return false;
+    }
+
+    // True if every tile the projectile could touch while moving by (dx, dy) this tick is inside the map and not a wall
+    static boolean isPathClear(Map map, double x, double y, double dx, double dy) {
+        if (map == null || map.isEmpty()) {
+            return false;
+        }
+        // Bounding box of the whole move, padded a pixel for rounding in the sub-step sums
+        double minX = Math.min(x, x + dx) - 1;
+        double minY = Math.min(y, y + dy) - 1;
+        double maxX = Math.max(x, x + dx) + Utilities.PROJECTILE_SIZE;
+        double maxY = Math.max(y, y + dy) + Utilities.PROJECTILE_SIZE;
+        if (minX < 0 || minY < 0) {
+            return false; // Let the sub-step checks handle the map edge
+        }
+        int c0 = (int) (minX / Utilities.TILE_SIZE);
+        int c1 = (int) (maxX / Utilities.TILE_SIZE);
+        int r0 = (int) (minY / Utilities.TILE_SIZE);
+        int r1 = (int) (maxY / Utilities.TILE_SIZE);
+        if (r1 >= map.height() || c1 >= map.width()) {
+            return false;
+        }
+        for (int r = r0; r <= r1; r++) {
+            if (map.isWallTile(c0, r) || map.clearTiles(c0, r, 1, 0) < c1 - c0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Damages the robot and destroys projectile i if they overlap at the given position
+    private boolean hitRobot(int i, int robotIndex, Robot robot, double projX1, double projY1) {
+        if (!robot.isAlive() || robotIndex == owner[i]) {
+            return false;
+        }
+        double robX1 = robot.getX();
+        double robY1 = robot.getY();
+        if (projX1 < robX1 + Utilities.ROBOT_SIZE && projX1 + Utilities.PROJECTILE_SIZE > robX1
+                && projY1 < robY1 + Utilities.ROBOT_SIZE && projY1 + Utilities.PROJECTILE_SIZE > robY1) {
+            robot.takeDamage(damage[i]);
+            alive[i] = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops destroyed projectiles and returns how many there were. The survivors keep
+     * their order rather than having the last one swapped into each gap: robots see
+     * projectiles in firing order and the update order decides which of two shots gets
+     * a robot's last hit point, so a seeded game must not depend on who died when.
+     */
+    synchronized int removeDead() {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!alive[i]) {
+                continue;
+            }
+            if (kept != i) {
+                id[kept] = id[i];
+                owner[kept] = owner[i];
+                x[kept] = x[i];
+                y[kept] = y[i];
+                angle[kept] = angle[i];
+                dirX[kept] = dirX[i];
+                dirY[kept] = dirY[i];
+                speed[kept] = speed[i];
+                damage[kept] = damage[i];
+                alive[kept] = true;
+            }
+            kept++;
+        }
+        int removed = count - kept;
+        // Views still held on to for the freed slots report the projectile as gone
+        Arrays.fill(alive, kept, count, false);
+        count = kept;
+        return removed;
+    }
+
+    int size() {
+        return count;
+    }
+
+    // The live projectiles as views, in firing order. The list is the store's own but is
+    // only ever written here, refilled on every call, so whatever a robot does to it can't
+    // reach the slots and is undone next time
+    synchronized ArrayList<Projectile> projectiles() {
+        handedOut.clear();
+        for (int i = 0; i < count; i++) {
+            handedOut.add(slotViews.get(i));
+        }
+        return handedOut;
+    }
+
+    // What the projectiles hit in the last tick, as views, in the order they hit. Refilled like projectiles()
+    synchronized ArrayList<Impact> impacts() {
+        impactsHandedOut.clear();
+        for (int i = 0; i < impactCount; i++) {
+            impactsHandedOut.add(impactViews.get(i));
+        }
+        return impactsHandedOut;
+    }
+
+    // The view of a live slot
+    Projectile view(int slot) {
+        return slotViews.get(slot);
+    }
+
+    // Slot accessors for Projectile
+    int id(int slot) {
+        return id[slot];
+    }
+
+    int owner(int slot) {
+        return owner[slot];
+    }
+
+    Robot ownerRobot(int slot) {
+        return robot(owner[slot]);
+    }
+
+    double x(int slot) {
+        return x[slot];
+    }
+
+    double y(int slot) {
+        return y[slot];
+    }
+
+    double angle(int slot) {
+        return angle[slot];
+    }
+
+    // Pixels moved per tick
+    double velocityX(int slot) {
+        return speed[slot] * dirX[slot];
+    }
+
+    double velocityY(int slot) {
+        return speed[slot] * dirY[slot];
+    }
+
+    int speed(int slot) {
+        return speed[slot];
+    }
+
+    int damage(int slot) {
+        return damage[slot];
+    }
+
+    boolean alive(int slot) {
+        return alive[slot];
+    }
+
+    // Accessors for Impact, by position in the last tick's impacts
+    int impactId(int impact) {
+        return impactId[impact];
+    }
+
+    int impactOwner(int impact) {
+        return impactOwner[impact];
+    }
+
+    int impactRobot(int impact) {
+        return impactRobot[impact];
+    }
+
+    double impactX(int impact) {
+        return impactX[impact];
+    }
+
+    double impactY(int impact) {
+        return impactY[impact];
+    }
+
+    double impactTime(int impact) {
+        return impactTime[impact];
+    }
+
+    // The robot at index in the game's robot list, or null if there isn't one
+    Robot robot(int index) {
+        return index >= 0 && index < game.getRobots().size() ? game.getRobots().get(index) : null;
+    }
+
+    void destroy(int slot) {
+        alive[slot] = false;
+    }
+}
@@ -13,8 +13,8 @@ public class Rando extends Robot{
 
     public void think(ArrayList<Robot> robots, ArrayList<Projectile> projectiles, Map map, ArrayList<PowerUp> powerups) {
       
-        if(Math.random() < 0.1) {
-          double r = Math.random();
+        if(getRandom().nextDouble() < 0.1) {
+          double r = getRandom().nextDouble();
             if (r < 0.25) {
                 curXMovement = -1; // Move left
                 curYMovement = 0; // No vertical movement
@@ -0,0 +1,93 @@
+package bcc.javaJostle;
+
+import java.util.HashMap;
+
+/**
+ * Elo and Glicko ratings for a set of players.
+ *
+ * Elo is updated after every match. Glicko (the original Glicko-1 system) works in
+ * rating periods: add the period's results with addGlickoResult(), then call
+ * endGlickoPeriod() to apply them all at once. A player's rating deviation grows a
+ * little each period, so players who sit out become less certain.
+ */
+public class Ratings {
+    public static final double INITIAL_RATING = 1500;
+    public static final double ELO_K = 32;
+    public static final double INITIAL_DEVIATION = 350;
+    private static final double DEVIATION_GROWTH = 30; // Glicko's c
+    private static final double Q = Math.log(10) / 400;
+
+    // Glicko results waiting for the end of the period, by player
+    private static class PeriodResults {
+        double deltaSum = 0; // sum of g(RDj) * (s - E)
+        double varianceSum = 0; // sum of g(RDj)^2 * E * (1 - E)
+    }
+
+    private final HashMap<String, Double> elo = new HashMap<>();
+    private final HashMap<String, Double> glicko = new HashMap<>();
+    private final HashMap<String, Double> deviation = new HashMap<>();
+    private final HashMap<String, PeriodResults> period = new HashMap<>();
+
+    public void addPlayer(String name) {
+        elo.putIfAbsent(name, INITIAL_RATING);
+        glicko.putIfAbsent(name, INITIAL_RATING);
+        deviation.putIfAbsent(name, INITIAL_DEVIATION);
+    }
+
+    public double getElo(String name) {
+        return elo.get(name);
+    }
+
+    public double getGlicko(String name) {
+        return glicko.get(name);
+    }
+
+    public double getDeviation(String name) {
+        return deviation.get(name);
+    }
+
+    // scoreA is 1 if a won, 0.5 for a draw and 0 if b won
+    public void addEloResult(String a, String b, double scoreA) {
+        double ratingA = elo.get(a);
+        double ratingB = elo.get(b);
+        double expectedA = 1 / (1 + Math.pow(10, (ratingB - ratingA) / 400));
+        elo.put(a, ratingA + ELO_K * (scoreA - expectedA));
+        elo.put(b, ratingB + ELO_K * ((1 - scoreA) - (1 - expectedA)));
+    }
+
+    // Records a result for the current Glicko period, against the opponents' ratings at the start of the period
+    public void addGlickoResult(String a, String b, double scoreA) {
+        addGlickoHalf(a, b, scoreA);
+        addGlickoHalf(b, a, 1 - scoreA);
+    }
+
+    private void addGlickoHalf(String player, String opponent, double score) {
+        double g = g(deviation.get(opponent));
+        double expected = 1 / (1 + Math.pow(10, -g * (glicko.get(player) - glicko.get(opponent)) / 400));
+        PeriodResults results = period.computeIfAbsent(player, name -> new PeriodResults());
+        results.deltaSum += g * (score - expected);
+        results.varianceSum += g * g * expected * (1 - expected);
+    }
+
+    // Applies every result recorded since the last period ended
+    public void endGlickoPeriod() {
+        for (String player : glicko.keySet()) {
+            double rd = Math.min(Math.sqrt(Math.pow(deviation.get(player), 2) + DEVIATION_GROWTH * DEVIATION_GROWTH),
+                    INITIAL_DEVIATION);
+            PeriodResults results = period.get(player);
+            if (results == null) {
+                deviation.put(player, rd); // Didn't play, only gets less certain
+                continue;
+            }
+            double dSquaredInverse = Q * Q * results.varianceSum;
+            double denominator = 1 / (rd * rd) + dSquaredInverse;
+            glicko.put(player, glicko.get(player) + Q / denominator * results.deltaSum);
+            deviation.put(player, Math.sqrt(1 / denominator));
+        }
+        period.clear();
+    }
+
+    private static double g(double rd) {
+        return 1 / Math.sqrt(1 + 3 * Q * Q * rd * rd / (Math.PI * Math.PI));
+    }
+}
@@ -0,0 +1,368 @@
+package bcc.javaJostle;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+/**
+ * Plays back a file written by ReplayRecorder.
+ *
+ * The file is memory-mapped. next() decodes one tick after another; seek() jumps to
+ * the last keyframe at or before the wanted tick and decodes forward from there, so
+ * it never has to read more than a keyframe interval of records.
+ */
+public class ReplayReader implements AutoCloseable {
+    // A projectile as recorded: where it was at some tick and how far it moves each tick
+    private static class Shot {
+        final int owner;
+        final int fromTick;
+        final float x, y, dx, dy;
+
+        Shot(int owner, int fromTick, float x, float y, float dx, float dy) {
+            this.owner = owner;
+            this.fromTick = fromTick;
+            this.x = x;
+            this.y = y;
+            this.dx = dx;
+            this.dy = dy;
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer data;
+
+    private final long seed;
+    private final int maxDuration;
+    private final String mapName;
+    private final String[] robotClassNames;
+    private final String[] robotNames;
+    private final int[] maxHealth;
+    private final long firstRecord;
+    private int[] keyframeTicks;
+    private long[] keyframeOffsets;
+    private int lastTick;
+    private int winner = -1;
+    private boolean finished; // false if the game was cut short before END was written
+
+    // Decoded state at the current tick
+    private int tick = -1;
+    private final int[] x, y, health, flags;
+    private final LinkedHashMap<Integer, Shot> shots = new LinkedHashMap<>();
+    private final LinkedHashMap<Integer, WorldSnapshot.PowerUpState> powerUps = new LinkedHashMap<>();
+
+    public ReplayReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.remaining() < 6 || data.getInt() != ReplayRecorder.MAGIC) {
+                throw new IOException(path + " is not a replay file");
+            }
+            short version = data.getShort();
+            if (version != ReplayRecorder.VERSION) {
+                throw new IOException(path + " is replay version " + version + ", expected "
+                        + ReplayRecorder.VERSION);
+            }
+            seed = data.getLong();
+            maxDuration = data.getInt();
+            data.getInt(); // keyframe interval, the index already says where they are
+            mapName = getString();
+            int robotCount = data.getShort();
+            robotClassNames = new String[robotCount];
+            robotNames = new String[robotCount];
+            maxHealth = new int[robotCount];
+            for (int i = 0; i < robotCount; i++) {
+                robotClassNames[i] = getString();
+                robotNames[i] = getString();
+                maxHealth[i] = data.getInt();
+            }
+            x = new int[robotCount];
+            y = new int[robotCount];
+            health = new int[robotCount];
+            flags = new int[robotCount];
+            firstRecord = data.position();
+            if (!readIndex()) {
+                scanForIndex();
+            }
+        } catch (BufferUnderflowException e) {
+            channel.close();
+            throw new IOException(path + " is truncated");
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        seek(keyframeTicks[0]);
+    }
+
+    // Reads the index from the end of a finished file; false if it isn't there
+    private boolean readIndex() {
+        int size = data.limit();
+        if (size - firstRecord < 12 || data.getInt(size - 4) != ReplayRecorder.INDEX_MAGIC) {
+            return false;
+        }
+        long indexOffset = data.getLong(size - 12);
+        data.position((int) indexOffset);
+        int count = data.getInt();
+        keyframeTicks = new int[count];
+        keyframeOffsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            keyframeTicks[i] = data.getInt();
+            keyframeOffsets[i] = data.getLong();
+        }
+        // The END record sits just before the index; find it by decoding from the last keyframe
+        scanFrom(keyframeOffsets[count - 1], (int) indexOffset, null);
+        return true;
+    }
+
+    // Decodes the whole file to find the keyframes of a game that never finished
+    private void scanForIndex() {
+        ArrayList<long[]> found = new ArrayList<>();
+        scanFrom(firstRecord, data.limit(), found);
+        keyframeTicks = new int[found.size()];
+        keyframeOffsets = new long[found.size()];
+        for (int i = 0; i < found.size(); i++) {
+            keyframeTicks[i] = (int) found.get(i)[0];
+            keyframeOffsets[i] = found.get(i)[1];
+        }
+        if (found.isEmpty()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    // Decodes records until the end, noting keyframes and the last complete tick
+    private void scanFrom(long offset, int end, ArrayList<long[]> keyframes) {
+        data.position((int) offset);
+        lastTick = 0;
+        while (data.position() < end) {
+            int start = data.position();
+            try {
+                byte tag = data.get();
+                if (tag == ReplayRecorder.END) {
+                    lastTick = getVarInt();
+                    winner = getSignedVarInt();
+                    finished = true;
+                    return;
+                }
+                readRecord(tag);
+            } catch (BufferUnderflowException | IllegalStateException e) {
+                return; // A record cut off when the game stopped; everything before it is usable
+            }
+            if (keyframes != null && data.get(start) == ReplayRecorder.KEYFRAME) {
+                keyframes.add(new long[] { tick, start });
+            }
+            lastTick = tick;
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getMaxDuration() {
+        return maxDuration;
+    }
+
+    public String getMapName() {
+        return mapName;
+    }
+
+    public int getRobotCount() {
+        return robotNames.length;
+    }
+
+    public String getRobotClassName(int index) {
+        return robotClassNames[index];
+    }
+
+    public String getRobotName(int index) {
+        return robotNames[index];
+    }
+
+    // The first tick in the file, 0 unless recording started part way through
+    public int getFirstTick() {
+        return keyframeTicks[0];
+    }
+
+    // The last tick in the file
+    public int getLastTick() {
+        return lastTick;
+    }
+
+    // Index of the winning robot, or -1 for a tie or a game that never finished
+    public int getWinner() {
+        return winner;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public boolean hasNext() {
+        return tick < lastTick;
+    }
+
+    // Moves on one tick
+    public WorldSnapshot next() {
+        if (!hasNext()) {
+            return snapshot();
+        }
+        readRecord(data.get());
+        return snapshot();
+    }
+
+    // Jumps to the given tick (clamped to the game) without decoding the whole file
+    public WorldSnapshot seek(int target) {
+        target = Math.max(keyframeTicks[0], Math.min(target, lastTick));
+        if (target < tick || tick < 0 || keyframeAtOrBefore(target) > tick) {
+            int keyframe = Arrays.binarySearch(keyframeTicks, target);
+            if (keyframe < 0) {
+                keyframe = -keyframe - 2; // The keyframe before the insertion point
+            }
+            data.position((int) keyframeOffsets[keyframe]);
+            readRecord(data.get());
+        }
+        while (tick < target) {
+            readRecord(data.get());
+        }
+        return snapshot();
+    }
+
+    private int keyframeAtOrBefore(int target) {
+        int keyframe = Arrays.binarySearch(keyframeTicks, target);
+        return keyframeTicks[keyframe >= 0 ? keyframe : -keyframe - 2];
+    }
+
+    private void readRecord(byte tag) {
+        if (tag == ReplayRecorder.KEYFRAME) {
+            readKeyframe();
+        } else if (tag == ReplayRecorder.TICK) {
+            readTick();
+        } else {
+            throw new IllegalStateException("Unexpected replay record " + tag + " at " + (data.position() - 1));
+        }
+    }
+
+    private void readKeyframe() {
+        tick = getVarInt();
+        for (int i = 0; i < x.length; i++) {
+            flags[i] = data.get();
+            x[i] = getSignedVarInt();
+            y[i] = getSignedVarInt();
+            health[i] = getSignedVarInt();
+        }
+        shots.clear();
+        int projectileCount = getVarInt();
+        for (int i = 0; i < projectileCount; i++) {
+            readShot();
+        }
+        powerUps.clear();
+        int powerUpCount = getVarInt();
+        for (int i = 0; i < powerUpCount; i++) {
+            readPowerUp();
+        }
+    }
+
+    private void readTick() {
+        tick = getVarInt();
+        byte[] changed = new byte[(x.length + 7) / 8];
+        data.get(changed);
+        for (int i = 0; i < x.length; i++) {
+            if ((changed[i / 8] & (1 << (i % 8))) != 0) {
+                flags[i] = data.get();
+                x[i] += getSignedVarInt();
+                y[i] += getSignedVarInt();
+                health[i] += getSignedVarInt();
+            }
+        }
+        int events = getVarInt();
+        for (int i = 0; i < events; i++) {
+            byte event = data.get();
+            switch (event) {
+                case ReplayRecorder.PROJECTILE_SPAWN:
+                    readShot();
+                    break;
+                case ReplayRecorder.PROJECTILE_GONE:
+                    shots.remove(getVarInt());
+                    break;
+                case ReplayRecorder.POWER_UP_SPAWN:
+                    readPowerUp();
+                    break;
+                case ReplayRecorder.POWER_UP_GONE:
+                    powerUps.remove(getVarInt());
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected replay event " + event);
+            }
+        }
+    }
+
+    private void readShot() {
+        int id = getVarInt();
+        int owner = getSignedVarInt();
+        shots.put(id, new Shot(owner, tick, data.getFloat(), data.getFloat(), data.getFloat(), data.getFloat()));
+    }
+
+    private void readPowerUp() {
+        int id = getVarInt();
+        float powerUpX = data.getFloat();
+        float powerUpY = data.getFloat();
+        String type = ReplayRecorder.POWER_UP_TYPES[data.get()];
+        powerUps.put(id, new WorldSnapshot.PowerUpState(powerUpX, powerUpY, type));
+    }
+
+    private WorldSnapshot snapshot() {
+        WorldSnapshot.RobotState[] robots = new WorldSnapshot.RobotState[x.length];
+        for (int i = 0; i < robots.length; i++) {
+            robots[i] = new WorldSnapshot.RobotState(x[i], y[i], health[i], maxHealth[i],
+                    (flags[i] & ReplayRecorder.ALIVE) != 0, (flags[i] & ReplayRecorder.SPEED_BOOST) != 0,
+                    (flags[i] & ReplayRecorder.ATTACK_BOOST) != 0, (flags[i] & ReplayRecorder.THINK_FAILED) == 0);
+        }
+        WorldSnapshot.ProjectileState[] projectiles = new WorldSnapshot.ProjectileState[shots.size()];
+        int i = 0;
+        for (Shot shot : shots.values()) {
+            int ticksFlown = tick - shot.fromTick;
+            projectiles[i++] = new WorldSnapshot.ProjectileState(shot.owner, shot.x + shot.dx * ticksFlown,
+                    shot.y + shot.dy * ticksFlown);
+        }
+        return new WorldSnapshot(tick, robots, projectiles,
+                powerUps.values().toArray(new WorldSnapshot.PowerUpState[0]));
+    }
+
+    private String getString() {
+        byte[] bytes = new byte[data.getShort()];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int getVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = data.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Bad varint in replay at " + data.position());
+    }
+
+    private int getSignedVarInt() {
+        int value = getVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,413 @@
+package bcc.javaJostle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Writes a game to a replay file as it is played, one record per tick.
+ *
+ * File layout (all numbers big-endian):
+ *   header    MAGIC, VERSION, seed, max duration, keyframe interval, map name, then
+ *             each robot's class name, display name and max health
+ *   records   one per tick, starting with a tag byte:
+ *             TICK      tick, a bitmask of robots that changed, and for each changed
+ *                       robot its flags and x/y/health deltas; then the events of the
+ *                       tick (projectiles and power-ups appearing and disappearing)
+ *             KEYFRAME  tick and the full state: every robot, projectile and power-up.
+ *                       Written instead of a TICK every keyframe interval so a reader
+ *                       can jump close to any tick and only replay a few records
+ *             END       last tick and the winner's index (-1 for none)
+ *   index     keyframe count, each keyframe's tick and file offset, then the offset
+ *             of the index and INDEX_MAGIC as the last 12 bytes of the file
+ *
+ * Ints are written as varints (zigzag for values that can go negative) so most
+ * robot deltas take a byte. Projectiles are stored as where they were at the end of
+ * the tick they appeared plus their owner (-1 if no robot fired it) and velocity;
+ * they fly straight until they disappear, so the reader can work out where they
+ * are at any later tick.
+ *
+ * A game that never finishes (the window was closed, the program crashed) leaves a
+ * file with no END or index; ReplayReader rebuilds the index by scanning it.
+ */
+public class ReplayRecorder implements AutoCloseable {
+    static final int MAGIC = 0x4A4A5250; // "JJRP"
+    static final int INDEX_MAGIC = 0x4A4A4958; // "JJIX"
+    static final short VERSION = 2; // 2: projectile owners are signed varints, -1 for none
+    static final int DEFAULT_KEYFRAME_INTERVAL = 100;
+
+    // Record tags
+    static final byte TICK = 1;
+    static final byte KEYFRAME = 2;
+    static final byte END = 3;
+
+    // Event tags inside a TICK record
+    static final byte PROJECTILE_SPAWN = 1;
+    static final byte PROJECTILE_GONE = 2;
+    static final byte POWER_UP_SPAWN = 3;
+    static final byte POWER_UP_GONE = 4;
+
+    // Robot flag bits
+    static final int ALIVE = 1;
+    static final int SPEED_BOOST = 2;
+    static final int ATTACK_BOOST = 4;
+    static final int THINK_FAILED = 8;
+
+    static final String[] POWER_UP_TYPES = { "health", "speed", "attack" };
+
+    private static final int MAX_FIELD_BYTES = 32; // Room for the largest single entry we write
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private long flushedBytes = 0;
+    private final int keyframeInterval;
+    private final ArrayList<Integer> keyframeTicks = new ArrayList<>();
+    private final ArrayList<Long> keyframeOffsets = new ArrayList<>();
+    private boolean open = true;
+
+    // What the last record said, to write only what changed
+    private final IdentityHashMap<Robot, Integer> robotIndex = new IdentityHashMap<>();
+    private final int[] lastX, lastY, lastHealth, lastFlags;
+    private final LinkedHashMap<Integer, Integer> liveProjectiles = new LinkedHashMap<>(); // game id -> replay id
+    private final IdentityHashMap<PowerUp, Integer> livePowerUps = new IdentityHashMap<>();
+    private int nextProjectileId = 0;
+    private int nextPowerUpId = 0;
+
+    // Events found this tick, written after the robot block
+    private final ArrayList<Projectile> spawnedProjectiles = new ArrayList<>();
+    private final ArrayList<Integer> goneProjectiles = new ArrayList<>();
+    private final ArrayList<PowerUp> spawnedPowerUps = new ArrayList<>();
+    private final ArrayList<Integer> gonePowerUps = new ArrayList<>();
+
+    public ReplayRecorder(Path path, Game game) throws IOException {
+        this(path, game, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    // Starts the file with the header and a keyframe of the game as it is now
+    public ReplayRecorder(Path path, Game game, int keyframeInterval) throws IOException {
+        this.keyframeInterval = keyframeInterval;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        int robotCount = game.getRobots().size();
+        lastX = new int[robotCount];
+        lastY = new int[robotCount];
+        lastHealth = new int[robotCount];
+        lastFlags = new int[robotCount];
+        try {
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putLong(game.getSeed());
+            buffer.putInt(game.getMaxDuration());
+            buffer.putInt(keyframeInterval);
+            putString(game.getMap().getName());
+            buffer.putShort((short) robotCount);
+            for (int i = 0; i < robotCount; i++) {
+                Robot robot = game.getRobots().get(i);
+                robotIndex.put(robot, i);
+                putString(robot.getClass().getSimpleName());
+                putString(robot.getName());
+                ensureRoom(MAX_FIELD_BYTES);
+                buffer.putInt(robot.getMaxHealth());
+            }
+            writeKeyframe(game);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Called by the game at the end of every tick
+    void recordTick(Game game) {
+        if (!open) {
+            return;
+        }
+        try {
+            if (game.getDuration() % keyframeInterval == 0) {
+                writeKeyframe(game);
+            } else {
+                writeTick(game);
+            }
+        } catch (IOException e) {
+            System.err.println("Replay recording stopped: " + e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    // Writes the end of the game and the index, then closes the file
+    public void finish(Game game) {
+        if (!open) {
+            return;
+        }
+        try {
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.put(END);
+            putVarInt(game.getDuration());
+            Robot winner = game.getWinner();
+            putSignedVarInt(winner != null ? robotIndex.get(winner) : -1);
+
+            long indexOffset = position();
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.putInt(keyframeTicks.size());
+            for (int i = 0; i < keyframeTicks.size(); i++) {
+                ensureRoom(MAX_FIELD_BYTES);
+                buffer.putInt(keyframeTicks.get(i));
+                buffer.putLong(keyframeOffsets.get(i));
+            }
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.putLong(indexOffset);
+            buffer.putInt(INDEX_MAGIC);
+            flush();
+        } catch (IOException e) {
+            System.err.println("Could not finish replay: " + e.getMessage());
+        }
+        closeQuietly();
+    }
+
+    // Closes the file without an index, as if the game had been cut short
+    @Override
+    public void close() {
+        if (open) {
+            try {
+                flush();
+            } catch (IOException e) {
+                System.err.println("Could not flush replay: " + e.getMessage());
+            }
+            closeQuietly();
+        }
+    }
+
+    private void writeTick(Game game) throws IOException {
+        ensureRoom(MAX_FIELD_BYTES);
+        buffer.put(TICK);
+        putVarInt(game.getDuration());
+
+        // Which robots changed, then only those robots
+        ArrayList<Robot> robots = game.getRobots();
+        int maskBytes = (robots.size() + 7) / 8;
+        byte[] changed = new byte[maskBytes];
+        int[] flags = new int[robots.size()];
+        for (int i = 0; i < robots.size(); i++) {
+            Robot robot = robots.get(i);
+            flags[i] = flagsOf(robot);
+            if (robot.getX() != lastX[i] || robot.getY() != lastY[i] || robot.getHealth() != lastHealth[i]
+                    || flags[i] != lastFlags[i]) {
+                changed[i / 8] |= 1 << (i % 8);
+            }
+        }
+        ensureRoom(maskBytes);
+        buffer.put(changed);
+        for (int i = 0; i < robots.size(); i++) {
+            if ((changed[i / 8] & (1 << (i % 8))) == 0) {
+                continue;
+            }
+            Robot robot = robots.get(i);
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.put((byte) flags[i]);
+            putSignedVarInt(robot.getX() - lastX[i]);
+            putSignedVarInt(robot.getY() - lastY[i]);
+            putSignedVarInt(robot.getHealth() - lastHealth[i]);
+            remember(i, robot, flags[i]);
+        }
+
+        findEvents(game);
+        ensureRoom(MAX_FIELD_BYTES);
+        putVarInt(spawnedProjectiles.size() + goneProjectiles.size() + spawnedPowerUps.size() + gonePowerUps.size());
+        for (int id : goneProjectiles) {
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.put(PROJECTILE_GONE);
+            putVarInt(id);
+        }
+        for (Projectile projectile : spawnedProjectiles) {
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.put(PROJECTILE_SPAWN);
+            putProjectile(projectile);
+        }
+        for (int id : gonePowerUps) {
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.put(POWER_UP_GONE);
+            putVarInt(id);
+        }
+        for (PowerUp powerUp : spawnedPowerUps) {
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.put(POWER_UP_SPAWN);
+            putPowerUp(powerUp);
+        }
+    }
+
+    private void writeKeyframe(Game game) throws IOException {
+        ensureRoom(MAX_FIELD_BYTES);
+        keyframeTicks.add(game.getDuration());
+        keyframeOffsets.add(position());
+        buffer.put(KEYFRAME);
+        putVarInt(game.getDuration());
+
+        ArrayList<Robot> robots = game.getRobots();
+        for (int i = 0; i < robots.size(); i++) {
+            Robot robot = robots.get(i);
+            int flags = flagsOf(robot);
+            ensureRoom(MAX_FIELD_BYTES);
+            buffer.put((byte) flags);
+            putSignedVarInt(robot.getX());
+            putSignedVarInt(robot.getY());
+            putSignedVarInt(robot.getHealth());
+            remember(i, robot, flags);
+        }
+
+        // Keep the ids in step so the TICK records after this one still line up
+        findEvents(game);
+        ensureRoom(MAX_FIELD_BYTES);
+        putVarInt(liveProjectiles.size());
+        for (Projectile projectile : game.getProjectiles()) {
+            ensureRoom(MAX_FIELD_BYTES);
+            putProjectile(projectile);
+        }
+        ensureRoom(MAX_FIELD_BYTES);
+        putVarInt(livePowerUps.size());
+        for (PowerUp powerUp : game.getPowerUps()) {
+            ensureRoom(MAX_FIELD_BYTES);
+            putPowerUp(powerUp);
+        }
+    }
+
+    // Compares the game's projectiles and power-ups with the ones seen last tick
+    private void findEvents(Game game) {
+        spawnedProjectiles.clear();
+        goneProjectiles.clear();
+        spawnedPowerUps.clear();
+        gonePowerUps.clear();
+
+        // Projectile objects are reused between ticks, so they are told apart by id
+        HashSet<Integer> stillHere = new HashSet<>();
+        for (Projectile projectile : game.getProjectiles()) {
+            stillHere.add(projectile.getId());
+            if (!liveProjectiles.containsKey(projectile.getId())) {
+                liveProjectiles.put(projectile.getId(), nextProjectileId++);
+                spawnedProjectiles.add(projectile);
+            }
+        }
+        for (Iterator<java.util.Map.Entry<Integer, Integer>> it = liveProjectiles.entrySet().iterator(); it
+                .hasNext();) {
+            java.util.Map.Entry<Integer, Integer> entry = it.next();
+            if (!stillHere.contains(entry.getKey())) {
+                goneProjectiles.add(entry.getValue());
+                it.remove();
+            }
+        }
+
+        IdentityHashMap<PowerUp, Boolean> powerUpsHere = new IdentityHashMap<>();
+        for (PowerUp powerUp : game.getPowerUps()) {
+            powerUpsHere.put(powerUp, Boolean.TRUE);
+            if (!livePowerUps.containsKey(powerUp)) {
+                livePowerUps.put(powerUp, nextPowerUpId++);
+                spawnedPowerUps.add(powerUp);
+            }
+        }
+        for (Iterator<java.util.Map.Entry<PowerUp, Integer>> it = livePowerUps.entrySet().iterator(); it.hasNext();) {
+            java.util.Map.Entry<PowerUp, Integer> entry = it.next();
+            if (!powerUpsHere.containsKey(entry.getKey())) {
+                gonePowerUps.add(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    private static int flagsOf(Robot robot) {
+        int flags = 0;
+        if (robot.isAlive()) {
+            flags |= ALIVE;
+        }
+        if (robot.hasSpeedBoost()) {
+            flags |= SPEED_BOOST;
+        }
+        if (robot.hasAttackBoost()) {
+            flags |= ATTACK_BOOST;
+        }
+        if (!robot.isSuccessfulThink()) {
+            flags |= THINK_FAILED;
+        }
+        return flags;
+    }
+
+    private void remember(int index, Robot robot, int flags) {
+        lastX[index] = robot.getX();
+        lastY[index] = robot.getY();
+        lastHealth[index] = robot.getHealth();
+        lastFlags[index] = flags;
+    }
+
+    private void putProjectile(Projectile projectile) {
+        putVarInt(liveProjectiles.get(projectile.getId()));
+        putSignedVarInt(projectile.getOwnerIndex());
+        buffer.putFloat((float) projectile.getX());
+        buffer.putFloat((float) projectile.getY());
+        buffer.putFloat((float) projectile.getVelocityX());
+        buffer.putFloat((float) projectile.getVelocityY());
+    }
+
+    private void putPowerUp(PowerUp powerUp) {
+        putVarInt(livePowerUps.get(powerUp));
+        buffer.putFloat((float) powerUp.getX());
+        buffer.putFloat((float) powerUp.getY());
+        byte type = 0;
+        for (byte i = 0; i < POWER_UP_TYPES.length; i++) {
+            if (POWER_UP_TYPES[i].equals(powerUp.getType())) {
+                type = i;
+            }
+        }
+        buffer.put(type);
+    }
+
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRoom(bytes.length + 2);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void putVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void putSignedVarInt(int value) {
+        putVarInt((value << 1) ^ (value >> 31)); // zigzag: small negatives stay small
+    }
+
+    private long position() {
+        return flushedBytes + buffer.position();
+    }
+
+    private void ensureRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushedBytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void closeQuietly() {
+        open = false;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close replay: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package bcc.javaJostle;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+
+/**
+ * A window that plays back a replay file. The slider jumps straight to any tick;
+ * arrow keys/WASD pan and left/right click zoom, the same as a live game.
+ */
+public class ReplayViewer {
+    private static final int TIMER_DELAY_MS = 40; // Same pace as a live game at 1x
+    private static final double[] SPEEDS = { 0.25, 0.5, 1.0, 2.0, 4.0, 8.0, 16.0 };
+    private static final DecimalFormat df = new DecimalFormat("0.##");
+    private static final int SCROLL_STEP = 32;
+
+    private final ReplayReader reader;
+    private final MapRenderer mapRenderer;
+    private final BufferedImage[] robotImages;
+    private final BufferedImage[] projectileImages;
+    private WorldSnapshot snapshot;
+
+    private final JFrame frame;
+    private final ReplayPanel panel = new ReplayPanel();
+    private final JSlider slider;
+    private final JLabel tickLabel = new JLabel();
+    private final JLabel speedLabel = new JLabel();
+    private final JButton playButton = new JButton("Pause");
+    private final JLabel[] robotLabels;
+    private final Timer timer;
+    private boolean movingSlider = false; // true while the slider is being set from playback
+    private int speedIndex = 2;
+    private double tickCredit = 0; // Fractional ticks owed at speeds below 1x
+
+    private double cameraX = 0;
+    private double cameraY = 0;
+    private double zoomFactor = 1.0;
+
+    // Opens the replay in a new window; shows an error dialog if it can't be read
+    public static void open(Component parent, Path path) {
+        try {
+            new ReplayViewer(new ReplayReader(path), path);
+        } catch (IOException | RuntimeException e) {
+            JOptionPane.showMessageDialog(parent, "Could not open replay: " + e.getMessage(), "Replay",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private ReplayViewer(ReplayReader reader, Path path) {
+        this.reader = reader;
+        this.mapRenderer = new MapRenderer(MapRegistry.get(reader.getMapName()));
+        int robotCount = reader.getRobotCount();
+        robotImages = new BufferedImage[robotCount];
+        projectileImages = new BufferedImage[robotCount];
+        for (int i = 0; i < robotCount; i++) {
+            // The robot class supplies the pictures; a robot that no longer loads is just not drawn
+            Robot robot = Utilities.createRobot(0, 0, reader.getRobotClassName(i));
+            if (robot != null) {
+                robotImages[i] = robot.getImage();
+                projectileImages[i] = robot.getProjectileImage();
+            }
+        }
+        snapshot = reader.seek(reader.getFirstTick());
+
+        frame = new JFrame("Java Jostle - Replay " + path.getFileName());
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setLayout(new BorderLayout());
+        frame.getContentPane().setBackground(Color.BLACK);
+
+        panel.setPreferredSize(new Dimension(Utilities.SCREEN_WIDTH, Utilities.SCREEN_HEIGHT));
+        panel.setBackground(Color.BLACK);
+        panel.setFocusable(true);
+        panel.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int keyCode = e.getKeyCode();
+                double scrollAmount = SCROLL_STEP / zoomFactor;
+                if (keyCode == KeyEvent.VK_LEFT || keyCode == KeyEvent.VK_A) { cameraX -= scrollAmount; }
+                else if (keyCode == KeyEvent.VK_RIGHT || keyCode == KeyEvent.VK_D) { cameraX += scrollAmount; }
+                else if (keyCode == KeyEvent.VK_UP || keyCode == KeyEvent.VK_W) { cameraY -= scrollAmount; }
+                else if (keyCode == KeyEvent.VK_DOWN || keyCode == KeyEvent.VK_S) { cameraY += scrollAmount; }
+                else if (keyCode == KeyEvent.VK_SPACE) { togglePlaying(); }
+                panel.repaint();
+            }
+        });
+        panel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                panel.requestFocusInWindow();
+                double newZoomFactor;
+                if (e.getButton() == MouseEvent.BUTTON1) { newZoomFactor = zoomFactor * 1.5; }
+                else if (e.getButton() == MouseEvent.BUTTON3) { newZoomFactor = Math.max(0.1, zoomFactor / 1.5); }
+                else { return; }
+                double worldMouseX = (e.getX() + cameraX) / zoomFactor;
+                double worldMouseY = (e.getY() + cameraY) / zoomFactor;
+                zoomFactor = newZoomFactor;
+                cameraX = worldMouseX * newZoomFactor - e.getX();
+                cameraY = worldMouseY * newZoomFactor - e.getY();
+                panel.repaint();
+            }
+        });
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
+        controls.setBackground(Color.GRAY);
+        playButton.addActionListener(e -> togglePlaying());
+        controls.add(playButton);
+        JButton speedButton = new JButton("Speed");
+        speedButton.addActionListener(e -> {
+            speedIndex = (speedIndex + 1) % SPEEDS.length;
+            updateLabels();
+            panel.requestFocusInWindow();
+        });
+        controls.add(speedButton);
+        speedLabel.setForeground(Color.WHITE);
+        controls.add(speedLabel);
+        tickLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        tickLabel.setForeground(Color.BLUE);
+        controls.add(tickLabel);
+
+        slider = new JSlider(reader.getFirstTick(), reader.getLastTick(), reader.getFirstTick());
+        slider.setBackground(Color.GRAY);
+        slider.addChangeListener(e -> {
+            if (!movingSlider) {
+                snapshot = reader.seek(slider.getValue());
+                updateLabels();
+                panel.repaint();
+            }
+        });
+
+        JPanel robotPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 5));
+        robotPanel.setBackground(Color.DARK_GRAY.darker());
+        robotLabels = new JLabel[robotCount];
+        for (int i = 0; i < robotCount; i++) {
+            robotLabels[i] = new JLabel();
+            robotLabels[i].setForeground(Color.WHITE);
+            robotPanel.add(robotLabels[i]);
+        }
+
+        JPanel bottom = new JPanel();
+        bottom.setLayout(new BoxLayout(bottom, BoxLayout.Y_AXIS));
+        bottom.add(slider);
+        bottom.add(controls);
+        bottom.add(robotPanel);
+
+        frame.add(panel, BorderLayout.CENTER);
+        frame.add(bottom, BorderLayout.SOUTH);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                timer.stop();
+                try {
+                    reader.close();
+                } catch (IOException ex) {
+                    System.err.println("Could not close replay: " + ex.getMessage());
+                }
+            }
+        });
+        frame.pack();
+        frame.setMinimumSize(new Dimension(800, 700));
+        frame.setLocationRelativeTo(null);
+
+        timer = new Timer(TIMER_DELAY_MS, e -> advance());
+        updateLabels();
+        frame.setVisible(true);
+        panel.requestFocusInWindow();
+        timer.start();
+    }
+
+    private void advance() {
+        if (!reader.hasNext()) {
+            timer.stop();
+            playButton.setText("Play");
+            return;
+        }
+        tickCredit += SPEEDS[speedIndex];
+        while (tickCredit >= 1 && reader.hasNext()) {
+            snapshot = reader.next();
+            tickCredit--;
+        }
+        movingSlider = true;
+        slider.setValue(snapshot.getTick());
+        movingSlider = false;
+        updateLabels();
+        panel.repaint();
+    }
+
+    private void togglePlaying() {
+        if (timer.isRunning()) {
+            timer.stop();
+            playButton.setText("Play");
+        } else {
+            if (!reader.hasNext()) {
+                snapshot = reader.seek(reader.getFirstTick()); // Start over from the beginning
+            }
+            timer.start();
+            playButton.setText("Pause");
+        }
+        panel.requestFocusInWindow();
+    }
+
+    private void updateLabels() {
+        tickLabel.setText("Tick " + snapshot.getTick() + " / " + reader.getLastTick());
+        speedLabel.setText("Speed: " + df.format(SPEEDS[speedIndex]) + "x");
+        for (int i = 0; i < robotLabels.length; i++) {
+            WorldSnapshot.RobotState robot = snapshot.getRobot(i);
+            String status = robot.alive ? robot.health + "/" + robot.maxHealth : "out";
+            if (!reader.hasNext() && reader.getWinner() == i) {
+                status += " - winner";
+            }
+            robotLabels[i].setText(reader.getRobotName(i) + ": " + status);
+        }
+    }
+
+    private class ReplayPanel extends JPanel {
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            snapshot.draw(g, mapRenderer, robotImages, projectileImages, getWidth(), getHeight(),
+                    (int) Math.round(cameraX), (int) Math.round(cameraY), zoomFactor);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package bcc.javaJostle;
 
 import java.util.ArrayList;
+import java.util.Random;
 import java.awt.image.BufferedImage;
 
 public abstract class Robot {
@@ -22,6 +23,8 @@ public abstract class Robot {
     private BufferedImage image;
     private BufferedImage projectileImage;
     private boolean successfulThink = true;
+    private Random random; // Set by the game so matches can be reproduced from a seed
+    private Game game; // The game this robot is playing in, set when it joins
 
     private int x;
     private int y;
@@ -118,32 +121,36 @@ public abstract class Robot {
         shoot = true;
     }
 
+    // Use this instead of Math.random() so games can be replayed from a seed
+    protected Random getRandom() {
+        if (random == null) {
+            random = new Random();
+        }
+        return random;
+    }
+
+    void setRandom(Random random) {
+        this.random = random;
+    }
+
+    // Shared lookups about the world as it was at the start of this tick; see Sensors
+    protected Sensors getSensors() {
+        return game != null ? game.getSensors() : null;
+    }
+
+    void setGame(Game game) {
+        this.game = game;
+    }
+
     public abstract void think(ArrayList<Robot> robots, ArrayList<Projectile> projectiles, Map map,
             ArrayList<PowerUp> powerups);
 
     private boolean isPointOkay(int pX, int pY, Map gameMap, ArrayList<Robot> allRobots) {
-        if (gameMap == null || gameMap.getTiles() == null)
-            return false;
-        int[][] mapTiles = gameMap.getTiles();
-        int mapRows = mapTiles.length;
-        if (mapRows == 0)
-            return false;
-        int mapCols = mapTiles[0].length;
-        if (mapCols == 0)
+        if (gameMap == null || gameMap.isEmpty())
             return false;
 
-        // 1. Map Boundary Check for the point
-        if (pX < 0 || pY < 0 || pX >= mapCols * Utilities.TILE_SIZE || pY >= mapRows * Utilities.TILE_SIZE) {
-            return false;
-        }
-
-        // 2. Wall Tile Check for the point
-        int tileCol = (int) (pX / Utilities.TILE_SIZE);
-        int tileRow = (int) (pY / Utilities.TILE_SIZE);
-        if (tileRow < 0 || tileRow >= mapRows || tileCol < 0 || tileCol >= mapCols) {
-            return false;
-        }
-        if (mapTiles[tileRow][tileCol] == Utilities.WALL) {
+        // 1. Map boundary and wall tile check for the point
+        if (gameMap.isWall(pX, pY)) {
             return false;
         }
 
@@ -180,33 +187,82 @@ public abstract class Robot {
                 isPointOkay(c4x, c4y, game.getMap(), game.getRobots());
     }
 
+    /*
+     * Works out how many pixels the robot can move in its movement direction, up to
+     * maxSteps, giving exactly the answer the pixel-by-pixel canMoveTo loop would.
+     * Assumes the current position is legal. The robot is narrower than a tile, so only
+     * the two leading corners can run into a wall: the trailing corners only ever pass
+     * over pixels the leading corners already cleared. The map's clear-tile counts give
+     * the first wall ahead of each leading corner directly. Two robots are the same size,
+     * so a corner of one is inside the other exactly when their pixel boxes overlap.
+     */
+    private int sweptMoveDistance(int maxSteps, Game game) {
+        if (maxSteps <= 0 || (xMovement == 0 && yMovement == 0)) {
+            return 0;
+        }
+        Map map = game.getMap();
+        int last = Utilities.ROBOT_SIZE - 1;
+        int limit = maxSteps;
+
+        // Walls and map edges: the map knows how many clear tiles lie ahead of each leading corner
+        if (xMovement != 0) {
+            int edge = xMovement > 0 ? x + last : x;
+            int col = edge / Utilities.TILE_SIZE;
+            int clear = Math.min(map.clearTiles(col, y / Utilities.TILE_SIZE, xMovement, 0),
+                    map.clearTiles(col, (y + last) / Utilities.TILE_SIZE, xMovement, 0));
+            int blockedCol = col + xMovement * (clear + 1);
+            // Pixels the edge can travel before it enters the blocked column
+            int free = xMovement > 0 ? blockedCol * Utilities.TILE_SIZE - 1 - edge
+                    : edge - (blockedCol + 1) * Utilities.TILE_SIZE;
+            limit = Math.min(limit, free);
+        } else {
+            int edge = yMovement > 0 ? y + last : y;
+            int row = edge / Utilities.TILE_SIZE;
+            int clear = Math.min(map.clearTiles(x / Utilities.TILE_SIZE, row, 0, yMovement),
+                    map.clearTiles((x + last) / Utilities.TILE_SIZE, row, 0, yMovement));
+            int blockedRow = row + yMovement * (clear + 1);
+            int free = yMovement > 0 ? blockedRow * Utilities.TILE_SIZE - 1 - edge
+                    : edge - (blockedRow + 1) * Utilities.TILE_SIZE;
+            limit = Math.min(limit, free);
+        }
+
+        // Other robots: the first step at which our box would overlap theirs
+        for (Robot otherRobot : game.getRobots()) {
+            if (otherRobot == this || !otherRobot.isAlive()) {
+                continue;
+            }
+            int along; // how far ahead of us the other robot is in the movement direction
+            int across; // offset on the other axis, which doesn't change while moving
+            if (xMovement != 0) {
+                along = (otherRobot.getX() - x) * xMovement;
+                across = otherRobot.getY() - y;
+            } else {
+                along = (otherRobot.getY() - y) * yMovement;
+                across = otherRobot.getX() - x;
+            }
+            if (Math.abs(across) > last || along + last < 1) {
+                continue; // Not in our lane, or already behind us
+            }
+            int firstBlocked = Math.max(1, along - last);
+            if (firstBlocked - 1 < limit) {
+                limit = firstBlocked - 1;
+            }
+        }
+        return limit;
+    }
+
     private boolean isTileMud(int currentX, int currentY, Map gameMap) {
-        if (gameMap == null || gameMap.getTiles() == null)
-            return false;
-        int[][] mapTiles = gameMap.getTiles();
-        int mapRows = mapTiles.length;
-        if (mapRows == 0)
-            return false;
-        int mapCols = mapTiles[0].length;
-        if (mapCols == 0)
+        if (gameMap == null || gameMap.isEmpty())
             return false;
 
-        int[] cornersX = { currentX, currentX + Utilities.ROBOT_SIZE - 1, currentX,
-                currentX + Utilities.ROBOT_SIZE - 1 };
-        int[] cornersY = { currentY, currentY, currentY + Utilities.ROBOT_SIZE - 1,
-                currentY + Utilities.ROBOT_SIZE - 1 };
+        int left = currentX / Utilities.TILE_SIZE;
+        int right = (currentX + Utilities.ROBOT_SIZE - 1) / Utilities.TILE_SIZE;
+        int top = currentY / Utilities.TILE_SIZE;
+        int bottom = (currentY + Utilities.ROBOT_SIZE - 1) / Utilities.TILE_SIZE;
 
-        for (int i = 0; i < 4; i++) {
-            int tileCol = (int) (cornersX[i] / Utilities.TILE_SIZE);
-            int tileRow = (int) (cornersY[i] / Utilities.TILE_SIZE);
-
-            if (tileRow >= 0 && tileRow < mapRows && tileCol >= 0 && tileCol < mapCols) {
-                if (mapTiles[tileRow][tileCol] == Utilities.MUD) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        // Tiles under the four corners; tileAt() is -1 outside the map
+        return gameMap.tileAt(left, top) == Utilities.MUD || gameMap.tileAt(right, top) == Utilities.MUD
+                || gameMap.tileAt(left, bottom) == Utilities.MUD || gameMap.tileAt(right, bottom) == Utilities.MUD;
     }
     public void applyPowerUpEffect(String type) {
         System.out.println(this.name + " picked up " + type + " power-up!");
@@ -267,9 +323,7 @@ public abstract class Robot {
         }
         // shoot
         if (shoot && canAttack()) {
-            Projectile p = new Projectile(x + Utilities.ROBOT_SIZE / 2 - Utilities.PROJECTILE_SIZE / 2, y + Utilities.ROBOT_SIZE / 2 - Utilities.PROJECTILE_SIZE / 2, xTarget, yTarget, projectileSpeed, projectileDamage, projectileImage,
-                    this);
-            game.addProjectile(p);
+            game.spawnProjectile(this, x + Utilities.ROBOT_SIZE / 2 - Utilities.PROJECTILE_SIZE / 2, y + Utilities.ROBOT_SIZE / 2 - Utilities.PROJECTILE_SIZE / 2, xTarget, yTarget, projectileSpeed, projectileDamage);
             attackCurCooldown = attackMaxCooldown;
         }
 
@@ -279,14 +333,22 @@ public abstract class Robot {
             effectiveSpeed /= 2.0;
         }
 
-        for (int i = 0; i < effectiveSpeed; i++) { // Iterate 'effectiveSpeedSteps' times
-            int potentialNextX = x + xMovement;
-            int potentialNextY = y + yMovement; // Y remains unchanged for X movement
-            if (canMoveTo(potentialNextX, potentialNextY, game)) {
-                x = potentialNextX;
-                y = potentialNextY; // Update Y only if X movement is successful
-            } else {
-                break; // Collision detected, stop moving in X
+        if (game.isSweptMovement() && canMoveTo(x, y, game)) {
+            // Resolve the whole move at once. This relies on the robot starting in a legal
+            // spot, so the rare case of starting on top of another robot takes the slow path.
+            int distance = sweptMoveDistance(effectiveSpeed, game);
+            x += xMovement * distance;
+            y += yMovement * distance;
+        } else {
+            for (int i = 0; i < effectiveSpeed; i++) { // Iterate 'effectiveSpeedSteps' times
+                int potentialNextX = x + xMovement;
+                int potentialNextY = y + yMovement; // Y remains unchanged for X movement
+                if (canMoveTo(potentialNextX, potentialNextY, game)) {
+                    x = potentialNextX;
+                    y = potentialNextY; // Update Y only if X movement is successful
+                } else {
+                    break; // Collision detected, stop moving in X
+                }
             }
         }
 
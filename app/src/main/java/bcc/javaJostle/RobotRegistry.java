@@ -0,0 +1,116 @@
+package bcc.javaJostle;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads robot classes once and hands out new instances cheaply.
+ *
+ * Robot classes are looked up in app/src/main/resources/robots through one shared
+ * class loader, and each class's (int, int) constructor is cached the first time
+ * it is asked for. Call reload() after the .class files in that directory change.
+ * Only classes that come from the robots directory can be reloaded: a class that is
+ * also on the application classpath (MyRobot, Rando, Rock...) always resolves there.
+ */
+public class RobotRegistry {
+    private static final String ROBOTS_DIR = "app/src/main/resources/robots"; // Path relative to project root
+    private static final String ROBOT_PACKAGE = "bcc.javaJostle.";
+
+    private static URLClassLoader robotLoader; // null when the robots directory doesn't exist
+    private static boolean initialized = false;
+    // Constructors by class name; empty when the class couldn't be loaded, so we don't retry every time
+    private static final ConcurrentHashMap<String, Optional<Constructor<? extends Robot>>> constructors = new ConcurrentHashMap<>();
+
+    private RobotRegistry() {
+    }
+
+    // Creates a robot of the given class at (x, y), or returns null if it can't be loaded or built
+    public static Robot create(String className, int x, int y) {
+        if (className.equals("MyRobot")) {
+            // MyRobot is always on the standard classpath
+            return new MyRobot(x, y);
+        }
+        Optional<Constructor<? extends Robot>> constructor = constructors.computeIfAbsent(className,
+                name -> Optional.ofNullable(findConstructor(name)));
+        if (!constructor.isPresent()) {
+            return null;
+        }
+        try {
+            return constructor.get().newInstance(x, y);
+        } catch (InvocationTargetException e) {
+            System.err.println("Error instantiating " + className + ": " + e.getCause());
+            e.getCause().printStackTrace();
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Error instantiating " + className + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    // Forgets every loaded class and opens a fresh loader, picking up changed .class files
+    public static synchronized void reload() {
+        constructors.clear();
+        if (robotLoader != null) {
+            try {
+                robotLoader.close();
+            } catch (IOException e) {
+                System.err.println("Error closing robot class loader: " + e.getMessage());
+            }
+        }
+        robotLoader = null;
+        initialized = false;
+    }
+
+    private static synchronized URLClassLoader loader() {
+        if (!initialized) {
+            initialized = true;
+            File robotsDir = new File(ROBOTS_DIR);
+            if (robotsDir.exists() && robotsDir.isDirectory()) {
+                try {
+                    URL[] urls = { robotsDir.toURI().toURL() };
+                    robotLoader = new URLClassLoader(urls, RobotRegistry.class.getClassLoader());
+                } catch (java.net.MalformedURLException e) {
+                    System.err.println("Error creating URL for src robots directory: " + robotsDir.getAbsolutePath()
+                            + " - " + e.getMessage());
+                }
+            }
+        }
+        return robotLoader;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Constructor<? extends Robot> findConstructor(String className) {
+        String qualifiedName = ROBOT_PACKAGE + className;
+        URLClassLoader loader = loader();
+        try {
+            Class<?> loadedClass;
+            if (loader != null) {
+                System.out.println("Loading robot class " + qualifiedName + " from " + ROBOTS_DIR);
+                loadedClass = loader.loadClass(qualifiedName);
+            } else {
+                // As a fallback, try to load the class directly from the classpath.
+                System.err.println("Robots directory " + ROBOTS_DIR + " not found. Loading " + qualifiedName
+                        + " from the classpath.");
+                loadedClass = Class.forName(qualifiedName);
+            }
+            if (!Robot.class.isAssignableFrom(loadedClass)) {
+                System.err.println("Class " + qualifiedName + " does not extend Robot.");
+                return null;
+            }
+            return (Constructor<? extends Robot>) loadedClass.getConstructor(int.class, int.class);
+        } catch (ClassNotFoundException e) {
+            System.err.println("Robot class not found: " + qualifiedName + " - " + e.getMessage());
+        } catch (NoSuchMethodException e) {
+            System.err.println("Constructor (int, int) not found for " + qualifiedName + " - " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error loading " + qualifiedName + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+}
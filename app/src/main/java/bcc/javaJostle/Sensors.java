@@ -0,0 +1,301 @@
+package bcc.javaJostle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Answers to the questions most robots ask every tick, shared by every robot. Get
+ * it with getSensors() inside think().
+ *
+ * Everything is as it was at the start of the tick, before any robot moved or shot.
+ * Distances are between centers, in pixels. Each game keeps one Sensors and resets
+ * it at the start of every tick, before any robot thinks, so answers are for the
+ * current tick only. Resetting just copies positions into arrays kept from tick to
+ * tick; the sorted indices and cached answers are only worked out once a robot asks.
+ */
+public final class Sensors {
+    private final Map map;
+    private final ArrayList<Robot> robots;
+
+    // Robots, by robot index
+    private final double[] robotX; // Center
+    private final double[] robotY;
+    private final boolean[] robotAlive;
+    private final int[] robotsByX; // Indices of the live robots, sorted by center x once asked for
+    private int liveRobots;
+
+    // Projectiles, in the game's order
+    private int projectileCount;
+    private Projectile[] projectiles = new Projectile[64];
+    private double[] projectileX = new double[64]; // Top-left corner
+    private double[] projectileY = new double[64];
+    private double[] projectileDx = new double[64]; // Per tick
+    private double[] projectileDy = new double[64];
+    private int[] projectileOwner = new int[64];
+    private int[] projectilesByX = new int[64]; // Sorted by x once asked for
+    private double maxProjectileSpeed;
+
+    private int powerUpCount;
+    private PowerUp[] powerUps = new PowerUp[16];
+    private double[] powerUpX = new double[16]; // Center
+    private double[] powerUpY = new double[16];
+
+    // Worked out the first time a robot asks each tick
+    private boolean indexed;
+    private final int[] nearestEnemy; // Robot index + 1, 0 = not worked out yet, -1 = none
+    private final int[] lineOfSight; // By a * robot count + b: 0 = not worked out yet, 1 = clear, 2 = blocked
+
+    Sensors(Game game) {
+        this.map = game.getMap();
+        this.robots = game.getRobots();
+        int robotCount = robots.size();
+        robotX = new double[robotCount];
+        robotY = new double[robotCount];
+        robotAlive = new boolean[robotCount];
+        robotsByX = new int[robotCount];
+        nearestEnemy = new int[robotCount];
+        lineOfSight = new int[robotCount * robotCount];
+        reset(game);
+    }
+
+    // Takes in the state at the start of a tick and forgets everything worked out last tick
+    synchronized void reset(Game game) {
+        for (int i = 0; i < robotX.length; i++) {
+            Robot robot = robots.get(i);
+            robotX[i] = robot.getX() + Utilities.ROBOT_SIZE / 2.0;
+            robotY[i] = robot.getY() + Utilities.ROBOT_SIZE / 2.0;
+            robotAlive[i] = robot.isAlive();
+        }
+
+        // Read from the store rather than getProjectiles(), which would refill the list the
+        // robot asking may be looping over
+        ProjectileStore store = game.getProjectileStore();
+        projectileCount = store.size();
+        if (projectiles.length < projectileCount) {
+            int capacity = Math.max(projectileCount, projectiles.length * 2);
+            projectiles = Arrays.copyOf(projectiles, capacity);
+            projectileX = new double[capacity];
+            projectileY = new double[capacity];
+            projectileDx = new double[capacity];
+            projectileDy = new double[capacity];
+            projectileOwner = new int[capacity];
+            projectilesByX = new int[capacity];
+        }
+        double maxSpeed = 0;
+        for (int i = 0; i < projectileCount; i++) {
+            projectiles[i] = store.view(i);
+            projectileX[i] = store.x(i);
+            projectileY[i] = store.y(i);
+            projectileDx[i] = store.velocityX(i);
+            projectileDy[i] = store.velocityY(i);
+            projectileOwner[i] = store.owner(i);
+            maxSpeed = Math.max(maxSpeed, store.speed(i));
+        }
+        Arrays.fill(projectiles, projectileCount, projectiles.length, null); // Don't hold on to old views
+        maxProjectileSpeed = maxSpeed;
+
+        ArrayList<PowerUp> gamePowerUps = game.getPowerUps();
+        powerUpCount = gamePowerUps.size();
+        if (powerUps.length < powerUpCount) {
+            int capacity = Math.max(powerUpCount, powerUps.length * 2);
+            powerUps = new PowerUp[capacity];
+            powerUpX = new double[capacity];
+            powerUpY = new double[capacity];
+        }
+        for (int i = 0; i < powerUpCount; i++) {
+            PowerUp powerUp = gamePowerUps.get(i);
+            powerUps[i] = powerUp;
+            powerUpX[i] = powerUp.getX() + Utilities.POWER_UP_SIZE / 2.0;
+            powerUpY[i] = powerUp.getY() + Utilities.POWER_UP_SIZE / 2.0;
+        }
+        Arrays.fill(powerUps, powerUpCount, powerUps.length, null);
+
+        indexed = false;
+    }
+
+    // Sorts the robots and projectiles by x and clears last tick's answers, the first time this tick a robot asks
+    private void index() {
+        if (indexed) {
+            return;
+        }
+        liveRobots = 0;
+        for (int i = 0; i < robotX.length; i++) {
+            if (robotAlive[i]) {
+                robotsByX[liveRobots++] = i;
+            }
+        }
+        sortByKey(robotsByX, liveRobots, robotX);
+        for (int i = 0; i < projectileCount; i++) {
+            projectilesByX[i] = i;
+        }
+        sortByKey(projectilesByX, projectileCount, projectileX);
+        Arrays.fill(nearestEnemy, 0);
+        Arrays.fill(lineOfSight, 0);
+        indexed = true;
+    }
+
+    // Sorts the first count indices by key[index]; there are only ever a few dozen, so insertion sort does
+    private static void sortByKey(int[] indices, int count, double[] key) {
+        for (int i = 1; i < count; i++) {
+            int index = indices[i];
+            int pos = i;
+            while (pos > 0 && key[indices[pos - 1]] > key[index]) {
+                indices[pos] = indices[pos - 1];
+                pos--;
+            }
+            indices[pos] = index;
+        }
+    }
+
+    // The first position among the first count indices whose key is at least value
+    private static int firstAtLeast(int[] indices, int count, double[] key, double value) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key[indices[mid]] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(Robot robot) {
+        for (int i = 0; i < robotX.length; i++) {
+            if (robots.get(i) == robot) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(robot.getName() + " is not in this game");
+    }
+
+    // The closest other live robot, or null if there are none
+    public synchronized Robot nearestEnemy(Robot self) {
+        index();
+        int i = indexOf(self);
+        if (nearestEnemy[i] == 0) {
+            int best = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (int k = 0; k < liveRobots; k++) {
+                int j = robotsByX[k];
+                double distance = Math.hypot(robotX[j] - robotX[i], robotY[j] - robotY[i]);
+                if (j != i && distance < bestDistance) {
+                    best = j;
+                    bestDistance = distance;
+                }
+            }
+            nearestEnemy[i] = best >= 0 ? best + 1 : -1;
+        }
+        return nearestEnemy[i] > 0 ? robots.get(nearestEnemy[i] - 1) : null;
+    }
+
+    // Every other live robot within radius, closest first
+    public synchronized ArrayList<Robot> enemiesWithin(Robot self, double radius) {
+        index();
+        int i = indexOf(self);
+        ArrayList<Robot> found = new ArrayList<>();
+        double[] distances = new double[liveRobots];
+        // Only robots whose x is within radius can be within radius
+        for (int k = firstAtLeast(robotsByX, liveRobots, robotX, robotX[i] - radius); k < liveRobots; k++) {
+            int j = robotsByX[k];
+            if (robotX[j] > robotX[i] + radius) {
+                break;
+            }
+            double distance = Math.hypot(robotX[j] - robotX[i], robotY[j] - robotY[i]);
+            if (j != i && distance <= radius) {
+                int pos = found.size();
+                while (pos > 0 && distances[pos - 1] > distance) {
+                    distances[pos] = distances[pos - 1];
+                    pos--;
+                }
+                distances[pos] = distance;
+                found.add(pos, robots.get(j));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Projectiles fired by someone else that will hit the robot within the next
+     * horizon ticks if neither of them changes course, soonest first. Shots that a
+     * wall will stop first are left out.
+     */
+    public synchronized ArrayList<Projectile> incomingProjectiles(Robot self, int horizon) {
+        index();
+        int i = indexOf(self);
+        ArrayList<Projectile> found = new ArrayList<>();
+        if (horizon <= 0 || projectileCount == 0) {
+            return found;
+        }
+        double robotLeft = robotX[i] - Utilities.ROBOT_SIZE / 2.0;
+        double robotTop = robotY[i] - Utilities.ROBOT_SIZE / 2.0;
+        double[] times = new double[projectileCount];
+        // Nothing further away in x than the fastest shot goes in horizon ticks can arrive in time
+        double reach = maxProjectileSpeed * horizon;
+        int start = firstAtLeast(projectilesByX, projectileCount, projectileX,
+                robotLeft - Utilities.PROJECTILE_SIZE - reach);
+        for (int k = start; k < projectileCount; k++) {
+            int p = projectilesByX[k];
+            if (projectileX[p] > robotLeft + Utilities.ROBOT_SIZE + reach) {
+                break;
+            }
+            if (projectileOwner[p] == i) {
+                continue;
+            }
+            double dx = projectileDx[p] * horizon;
+            double dy = projectileDy[p] * horizon;
+            double hit = ProjectileStore.robotHitTime(projectileX[p], projectileY[p], dx, dy, robotLeft, robotTop);
+            if (Double.isNaN(hit)) {
+                continue;
+            }
+            double wall = map != null && !map.isEmpty()
+                    ? ProjectileStore.wallHitTime(map, projectileX[p], projectileY[p], dx, dy)
+                    : Double.NaN;
+            if (!Double.isNaN(wall) && wall <= hit) {
+                continue;
+            }
+            int pos = found.size();
+            while (pos > 0 && times[pos - 1] > hit) {
+                times[pos] = times[pos - 1];
+                pos--;
+            }
+            times[pos] = hit;
+            found.add(pos, projectiles[p]);
+        }
+        return found;
+    }
+
+    // True if no wall tile lies on the straight line between the two robots' centers
+    public synchronized boolean hasLineOfSight(Robot a, Robot b) {
+        index();
+        int i = indexOf(a);
+        int j = indexOf(b);
+        int key = Math.min(i, j) * robotX.length + Math.max(i, j); // The line is the same both ways
+        if (lineOfSight[key] == 0) {
+            boolean clear = map == null || map.isEmpty() || Double.isNaN(ProjectileStore.cornerHitTime(map,
+                    robotX[i], robotY[i], robotX[j] - robotX[i], robotY[j] - robotY[i], 1));
+            lineOfSight[key] = clear ? 1 : 2;
+        }
+        return lineOfSight[key] == 1;
+    }
+
+    // The closest power-up of the given type ("health", "speed" or "attack", or null for any), or null if there are none
+    public synchronized PowerUp nearestPowerUp(Robot self, String type) {
+        int i = indexOf(self);
+        PowerUp best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (int k = 0; k < powerUpCount; k++) {
+            if (type != null && !type.equals(powerUps[k].getType())) {
+                continue;
+            }
+            double distance = Math.hypot(powerUpX[k] - robotX[i], powerUpY[k] - robotY[i]);
+            if (distance < bestDistance) {
+                best = powerUps[k];
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,153 @@
+package bcc.javaJostle;
+
+import java.util.Arrays;
+
+/**
+ * Broad-phase index that buckets boxes into TILE_SIZE cells so a collision check
+ * only has to look at the few boxes near it instead of all of them.
+ *
+ * Usage each tick: clear(), insert() every box with its id, build(), then query()
+ * as often as needed. Query results are the ids in ascending order, so callers that
+ * take the first hit get the same answer as a scan over the original list.
+ */
+class SpatialGrid {
+    private final int cols;
+    private final int rows;
+
+    // Boxes waiting to be bucketed: id and inclusive cell range
+    private int count = 0;
+    private int[] ids = new int[16];
+    private int[] minCol = new int[16];
+    private int[] minRow = new int[16];
+    private int[] maxCol = new int[16];
+    private int[] maxRow = new int[16];
+
+    // Bucketed ids: the ids in cell c are cellItems[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellStart;
+    private int[] cellItems = new int[16];
+
+    // Query scratch space
+    private int[] results = new int[16];
+    private int[] seenStamp = new int[16];
+    private int stamp = 0;
+
+    SpatialGrid(int cols, int rows) {
+        this.cols = Math.max(1, cols);
+        this.rows = Math.max(1, rows);
+        this.cellStart = new int[this.cols * this.rows + 1];
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    // Adds a box; ids should be small non-negative numbers such as list indices
+    void insert(int id, double minX, double minY, double maxX, double maxY) {
+        if (count == ids.length) {
+            int newLength = count * 2;
+            ids = Arrays.copyOf(ids, newLength);
+            minCol = Arrays.copyOf(minCol, newLength);
+            minRow = Arrays.copyOf(minRow, newLength);
+            maxCol = Arrays.copyOf(maxCol, newLength);
+            maxRow = Arrays.copyOf(maxRow, newLength);
+        }
+        ids[count] = id;
+        minCol[count] = colOf(minX);
+        minRow[count] = rowOf(minY);
+        maxCol[count] = colOf(maxX);
+        maxRow[count] = rowOf(maxY);
+        count++;
+        if (id >= seenStamp.length) {
+            seenStamp = Arrays.copyOf(seenStamp, Math.max(id + 1, seenStamp.length * 2));
+        }
+    }
+
+    // Buckets everything inserted since the last clear()
+    void build() {
+        Arrays.fill(cellStart, 0);
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            for (int r = minRow[i]; r <= maxRow[i]; r++) {
+                for (int c = minCol[i]; c <= maxCol[i]; c++) {
+                    cellStart[r * cols + c + 1]++;
+                    total++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cols * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        if (cellItems.length < total) {
+            cellItems = new int[Math.max(total, cellItems.length * 2)];
+        }
+        // Fill each cell from the back using the end offsets, then the offsets are starts again
+        for (int i = count - 1; i >= 0; i--) {
+            for (int r = minRow[i]; r <= maxRow[i]; r++) {
+                for (int c = minCol[i]; c <= maxCol[i]; c++) {
+                    int cell = r * cols + c;
+                    cellItems[--cellStart[cell + 1]] = ids[i];
+                }
+            }
+        }
+        // cellStart[cell + 1] now holds the start of cell, shift back down
+        for (int cell = 0; cell < cols * rows; cell++) {
+            cellStart[cell] = cellStart[cell + 1];
+        }
+        cellStart[cols * rows] = total;
+    }
+
+    /**
+     * Finds the ids of all boxes sharing a cell with the given box. Returns how
+     * many were found; read them with result(i), smallest id first. The caller
+     * still has to do the exact overlap test.
+     */
+    int query(double minX, double minY, double maxX, double maxY) {
+        int c0 = colOf(minX);
+        int c1 = colOf(maxX);
+        int r0 = rowOf(minY);
+        int r1 = rowOf(maxY);
+
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seenStamp, 0);
+            stamp = 1;
+        }
+        int found = 0;
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int id = cellItems[k];
+                    if (seenStamp[id] != stamp) {
+                        seenStamp[id] = stamp;
+                        if (found == results.length) {
+                            results = Arrays.copyOf(results, found * 2);
+                        }
+                        // Insertion sort keeps results ascending; there are only ever a handful
+                        int pos = found++;
+                        while (pos > 0 && results[pos - 1] > id) {
+                            results[pos] = results[pos - 1];
+                            pos--;
+                        }
+                        results[pos] = id;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    int result(int i) {
+        return results[i];
+    }
+
+    private int colOf(double x) {
+        int c = (int) Math.floor(x / Utilities.TILE_SIZE);
+        return Math.max(0, Math.min(cols - 1, c));
+    }
+
+    private int rowOf(double y) {
+        int r = (int) Math.floor(y / Utilities.TILE_SIZE);
+        return Math.max(0, Math.min(rows - 1, r));
+    }
+}
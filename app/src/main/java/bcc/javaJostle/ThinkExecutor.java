@@ -0,0 +1,16 @@
+package bcc.javaJostle;
+
+/**
+ * Runs a robot's think/step task for one tick with a time limit. Game uses this
+ * so the way think tasks are run (a new thread each time, a pool of reusable
+ * threads, or the calling thread) can be swapped out and compared.
+ */
+public interface ThinkExecutor {
+    /**
+     * Runs the task and waits up to timeLimitMs for it to finish. If it is still
+     * running after that, it is interrupted and given graceMs more to stop.
+     *
+     * @return true if the task finished within timeLimitMs
+     */
+    boolean run(String name, Runnable task, long timeLimitMs, long graceMs) throws InterruptedException;
+}
@@ -0,0 +1,33 @@
+package bcc.javaJostle;
+
+/**
+ * The available ways of running robot thinks. Pick one per game with
+ * Game.setThinkStrategy().
+ */
+public enum ThinkStrategy {
+    THREAD_PER_THINK,
+    POOLED,
+    DIRECT;
+
+    // One pool is shared by every game in the process
+    private static PooledThinkExecutor sharedPool;
+
+    public ThinkExecutor executor() {
+        switch (this) {
+            case THREAD_PER_THINK:
+                return new ThreadPerThinkExecutor();
+            case DIRECT:
+                return new DirectThinkExecutor();
+            case POOLED:
+            default:
+                return sharedPool();
+        }
+    }
+
+    private static synchronized PooledThinkExecutor sharedPool() {
+        if (sharedPool == null) {
+            sharedPool = new PooledThinkExecutor();
+        }
+        return sharedPool;
+    }
+}
@@ -0,0 +1,24 @@
+package bcc.javaJostle;
+
+/**
+ * The original think executor: starts a brand new thread for every think and
+ * joins it with the time limit.
+ */
+public class ThreadPerThinkExecutor implements ThinkExecutor {
+
+    @Override
+    public boolean run(String name, Runnable task, long timeLimitMs, long graceMs) throws InterruptedException {
+        Thread thinkThread = new Thread(task);
+        thinkThread.setName(name);
+        thinkThread.start();
+
+        thinkThread.join(timeLimitMs); // Wait for the thread to finish with a timeout
+        if (thinkThread.isAlive()) {
+            // Thread is still alive, meaning it timed out
+            thinkThread.interrupt();
+            thinkThread.join(graceMs); // Give it a moment to die after interrupt
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,633 @@
+package bcc.javaJostle;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plays a one-on-one tournament between many robots and rates them.
+ *
+ * Usage: Tournament [--format ROUND_ROBIN|SWISS|SINGLE_ELIMINATION] [--games N] [--rounds N] [--map NAME]
+ *                   [--threads N] [--max-ticks N] [--think POOLED|THREAD_PER_THINK|DIRECT] [--seed N]
+ *                   [--journal FILE] [--results FILE] [--metrics] [--replays DIR] [--verbose]
+ *                   robot1 robot2 ...
+ *
+ * Every pairing plays --games games; whoever wins more of them wins the match. All
+ * games of a round (all games of the whole event for round robin) are spread over
+ * the cores by a work-stealing pool.
+ *
+ * Each finished game is appended to the journal as soon as it ends. Pairings only
+ * depend on the entrant order, the seed and earlier results, so running the same
+ * command again after a crash skips every game already in the journal and carries
+ * on where it stopped. The final standings, with Elo and Glicko ratings, go to the
+ * results file. --metrics also prints tick timings and counters for the games played,
+ * and --replays saves each game to DIR/round-R-match-M-game-G.jjr.
+ *
+ * From gradle: gradle tournament --args="--format SWISS --games 3 MyRobot Rando Rock LeftRight"
+ */
+public class Tournament {
+    public enum Format {
+        ROUND_ROBIN, SWISS, SINGLE_ELIMINATION
+    }
+
+    // Two entrants meeting in a round. b is null when a gets a bye
+    static class Pairing {
+        final int round;
+        final int index;
+        final String a;
+        final String b;
+
+        Pairing(int round, int index, String a, String b) {
+            this.round = round;
+            this.index = index;
+            this.a = a;
+            this.b = b;
+        }
+    }
+
+    // One finished game of a pairing, as stored in the journal
+    static class GameRecord {
+        final int round, match, game;
+        final String a, b;
+        final long seed;
+        final String winner; // null for a tie
+        final int duration;
+
+        GameRecord(int round, int match, int game, String a, String b, long seed, String winner, int duration) {
+            this.round = round;
+            this.match = match;
+            this.game = game;
+            this.a = a;
+            this.b = b;
+            this.seed = seed;
+            this.winner = winner;
+            this.duration = duration;
+        }
+
+        String toCsv() {
+            return round + "," + match + "," + game + "," + a + "," + b + "," + seed + ","
+                    + (winner == null ? "" : winner) + "," + duration;
+        }
+
+        static GameRecord fromCsv(String line) {
+            String[] parts = line.split(",", -1);
+            return new GameRecord(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]),
+                    parts[3], parts[4], Long.parseLong(parts[5]), parts[6].isEmpty() ? null : parts[6],
+                    Integer.parseInt(parts[7]));
+        }
+    }
+
+    // Running totals for one entrant
+    static class Standing {
+        final String name;
+        final int seedIndex; // position in the entrant list, lower is better
+        double points = 0; // 1 per match win or bye, 0.5 per drawn match
+        int gameWins = 0, gameLosses = 0, gameTies = 0;
+        boolean hadBye = false;
+        final HashSet<String> opponents = new HashSet<>();
+
+        Standing(String name, int seedIndex) {
+            this.name = name;
+            this.seedIndex = seedIndex;
+        }
+    }
+
+    private static final String JOURNAL_COLUMNS = "round,match,game,robotA,robotB,seed,winner,duration";
+
+    private Format format = Format.ROUND_ROBIN;
+    private int gamesPerMatch = 3;
+    private int swissRounds = 0; // 0 means enough rounds to separate everyone
+    private String mapName = "Standard";
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxTicks = 7500;
+    private ThinkStrategy thinkStrategy = ThinkStrategy.POOLED;
+    private Long baseSeed = null; // null means use the journal's seed, or a random one for a new journal
+    private Path journalPath = Paths.get("tournament-journal.csv");
+    private Path resultsPath = Paths.get("tournament-results.csv");
+    private boolean verbose = false;
+    private GameMetrics metrics = null; // null unless --metrics was given
+    private Path replayDirectory = null; // null unless --replays was given
+    private ArrayList<String> entrants = new ArrayList<>();
+
+    private LinkedHashMap<String, Standing> standings = new LinkedHashMap<>();
+    private ConcurrentHashMap<String, GameRecord> finishedGames = new ConcurrentHashMap<>();
+    private ArrayList<String> bracket; // Single elimination: entrants still in, in bracket order, null for a bye
+    private Ratings ratings = new Ratings();
+    private PrintWriter journal;
+    private int gamesPlayed = 0; // Games actually played in this run, not read from the journal
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Utilities.setHeadless(true); // Nothing is drawn, so skip loading images
+        Tournament tournament = new Tournament();
+        if (!tournament.parseArgs(args)) {
+            System.err.println("Usage: Tournament [--format ROUND_ROBIN|SWISS|SINGLE_ELIMINATION] [--games N]"
+                    + " [--rounds N] [--map NAME] [--threads N] [--max-ticks N]"
+                    + " [--think POOLED|THREAD_PER_THINK|DIRECT] [--seed N] [--journal FILE] [--results FILE]"
+                    + " [--metrics] [--replays DIR] [--verbose] robot1 robot2 ...");
+            System.exit(1);
+        }
+        tournament.run();
+    }
+
+    private boolean parseArgs(String[] args) {
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format":
+                        format = Format.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--games":
+                        gamesPerMatch = Integer.parseInt(args[++i]);
+                        break;
+                    case "--rounds":
+                        swissRounds = Integer.parseInt(args[++i]);
+                        break;
+                    case "--map":
+                        mapName = args[++i];
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--max-ticks":
+                        maxTicks = Integer.parseInt(args[++i]);
+                        break;
+                    case "--think":
+                        thinkStrategy = ThinkStrategy.valueOf(args[++i].toUpperCase());
+                        break;
+                    case "--seed":
+                        baseSeed = Long.parseLong(args[++i]);
+                        break;
+                    case "--journal":
+                        journalPath = Paths.get(args[++i]);
+                        break;
+                    case "--results":
+                        resultsPath = Paths.get(args[++i]);
+                        break;
+                    case "--metrics":
+                        metrics = new GameMetrics();
+                        break;
+                    case "--replays":
+                        replayDirectory = Paths.get(args[++i]);
+                        break;
+                    case "--verbose":
+                        verbose = true;
+                        break;
+                    default:
+                        if (args[i].startsWith("--")) {
+                            System.err.println("Unknown option: " + args[i]);
+                            return false;
+                        }
+                        if (entrants.contains(args[i])) {
+                            System.err.println("Duplicate entrant: " + args[i]);
+                            return false;
+                        }
+                        entrants.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Bad arguments: " + e.getMessage());
+            return false;
+        }
+        return entrants.size() >= 2 && gamesPerMatch > 0 && swissRounds >= 0 && threads > 0 && maxTicks > 0;
+    }
+
+    public void run() throws IOException {
+        PrintStream report = System.out;
+        openJournal(report);
+        if (replayDirectory != null) {
+            Files.createDirectories(replayDirectory);
+        }
+        for (int i = 0; i < entrants.size(); i++) {
+            standings.put(entrants.get(i), new Standing(entrants.get(i), i));
+            ratings.addPlayer(entrants.get(i));
+        }
+        if (format == Format.SINGLE_ELIMINATION) {
+            bracket = seededBracket(entrants);
+        }
+
+        if (!verbose) {
+            // Games and robots print a lot; keep the report readable
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        long startTime = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int rounds = roundCount();
+            ArrayList<List<Pairing>> schedule = new ArrayList<>();
+            if (format == Format.ROUND_ROBIN) {
+                // Round robin pairings never depend on results, so every game can be queued at once
+                List<Pairing> everything = new ArrayList<>();
+                for (int round = 0; round < rounds; round++) {
+                    schedule.add(roundRobinRound(round));
+                    everything.addAll(schedule.get(round));
+                }
+                play(pool, everything);
+            }
+            for (int round = 0; round < rounds; round++) {
+                List<Pairing> pairings;
+                if (format == Format.ROUND_ROBIN) {
+                    pairings = schedule.get(round);
+                } else {
+                    pairings = format == Format.SWISS ? swissRound(round) : eliminationRound(round);
+                    play(pool, pairings);
+                }
+                score(pairings);
+            }
+        } finally {
+            pool.shutdownNow();
+            journal.close();
+            System.setOut(report);
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        writeResults();
+        printReport(report, elapsedNanos);
+    }
+
+    // Round robin uses the circle method: the first entrant stays put and the rest rotate
+    private int roundCount() {
+        int n = entrants.size();
+        switch (format) {
+            case ROUND_ROBIN:
+                return n % 2 == 0 ? n - 1 : n;
+            case SWISS:
+                return swissRounds > 0 ? swissRounds : 32 - Integer.numberOfLeadingZeros(n - 1);
+            default:
+                return Integer.numberOfTrailingZeros(bracket.size());
+        }
+    }
+
+    List<Pairing> roundRobinRound(int round) {
+        ArrayList<String> circle = new ArrayList<>(entrants);
+        if (circle.size() % 2 == 1) {
+            circle.add(null); // Whoever meets the empty seat has a bye
+        }
+        int n = circle.size();
+        List<Pairing> pairings = new ArrayList<>();
+        for (int i = 0; i < n / 2; i++) {
+            String a = circleSeat(circle, round, i);
+            String b = circleSeat(circle, round, n - 1 - i);
+            if (a == null) {
+                a = b;
+                b = null;
+            }
+            pairings.add(new Pairing(round, i, a, b));
+        }
+        return pairings;
+    }
+
+    private static String circleSeat(ArrayList<String> circle, int round, int seat) {
+        if (seat == 0) {
+            return circle.get(0);
+        }
+        int rotating = circle.size() - 1;
+        return circle.get(1 + (seat - 1 + round) % rotating);
+    }
+
+    // Swiss pairs entrants with similar scores who haven't met yet. Ties in the standings
+    // are broken by entrant order so the pairings are the same every time
+    List<Pairing> swissRound(int round) {
+        ArrayList<Standing> ranked = new ArrayList<>(standings.values());
+        Collections.sort(ranked, (x, y) -> x.points != y.points ? Double.compare(y.points, x.points)
+                : Integer.compare(x.seedIndex, y.seedIndex));
+
+        List<Pairing> pairings = new ArrayList<>();
+        if (ranked.size() % 2 == 1) {
+            // The lowest ranked entrant who hasn't had a bye sits out
+            Standing bye = ranked.get(ranked.size() - 1);
+            for (int i = ranked.size() - 1; i >= 0; i--) {
+                if (!ranked.get(i).hadBye) {
+                    bye = ranked.get(i);
+                    break;
+                }
+            }
+            ranked.remove(bye);
+            pairings.add(new Pairing(round, 0, bye.name, null));
+        }
+        while (!ranked.isEmpty()) {
+            Standing top = ranked.remove(0);
+            int opponent = 0;
+            for (int i = 0; i < ranked.size(); i++) {
+                if (!top.opponents.contains(ranked.get(i).name)) {
+                    opponent = i;
+                    break;
+                }
+            }
+            // If everyone left has already played top, a rematch with the closest score it is
+            pairings.add(new Pairing(round, pairings.size(), top.name, ranked.remove(opponent).name));
+        }
+        return pairings;
+    }
+
+    List<Pairing> eliminationRound(int round) {
+        List<Pairing> pairings = new ArrayList<>();
+        for (int i = 0; i < bracket.size(); i += 2) {
+            String a = bracket.get(i);
+            String b = bracket.get(i + 1);
+            if (a == null) {
+                a = b;
+                b = null;
+            }
+            pairings.add(new Pairing(round, i / 2, a, b));
+        }
+        return pairings;
+    }
+
+    // Places entrants so the top seeds can only meet late, padding with byes up to a power of two.
+    // Byes go to the top seeds because the lowest seed numbers face the highest.
+    static ArrayList<String> seededBracket(List<String> entrants) {
+        int size = 1;
+        while (size < entrants.size()) {
+            size *= 2;
+        }
+        ArrayList<Integer> order = new ArrayList<>();
+        order.add(0);
+        while (order.size() < size) {
+            int next = order.size() * 2;
+            ArrayList<Integer> expanded = new ArrayList<>();
+            for (int seed : order) {
+                expanded.add(seed);
+                expanded.add(next - 1 - seed);
+            }
+            order = expanded;
+        }
+        ArrayList<String> bracket = new ArrayList<>();
+        for (int seed : order) {
+            bracket.add(seed < entrants.size() ? entrants.get(seed) : null);
+        }
+        return bracket;
+    }
+
+    // Plays every game of the given pairings that isn't in the journal yet
+    private void play(ForkJoinPool pool, List<Pairing> pairings) {
+        List<GameRecord> toPlay = new ArrayList<>();
+        for (Pairing pairing : pairings) {
+            if (pairing.b == null) {
+                continue;
+            }
+            for (int game = 0; game < gamesPerMatch; game++) {
+                if (!finishedGames.containsKey(key(pairing.round, pairing.index, game))) {
+                    long seed = gameSeed(baseSeed, pairing.round, pairing.index, game);
+                    toPlay.add(new GameRecord(pairing.round, pairing.index, game, pairing.a, pairing.b, seed, null, 0));
+                }
+            }
+        }
+        if (!toPlay.isEmpty()) {
+            pool.invoke(new GamesTask(toPlay, 0, toPlay.size()));
+        }
+    }
+
+    // Splits the games in half until each task is one game, so idle workers can steal the other halves
+    private class GamesTask extends RecursiveAction {
+        private final List<GameRecord> games;
+        private final int from, to;
+
+        GamesTask(List<GameRecord> games, int from, int to) {
+            this.games = games;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                playGame(games.get(from));
+                return;
+            }
+            int middle = (from + to) / 2;
+            invokeAll(new GamesTask(games, from, middle), new GamesTask(games, middle, to));
+        }
+    }
+
+    private void playGame(GameRecord scheduled) {
+        ArrayList<String> names = new ArrayList<>();
+        // Swap who spawns first every other game
+        if (scheduled.game % 2 == 0) {
+            names.add(scheduled.a);
+            names.add(scheduled.b);
+        } else {
+            names.add(scheduled.b);
+            names.add(scheduled.a);
+        }
+        Path replay = replayDirectory == null ? null
+                : replayDirectory.resolve("round-" + scheduled.round + "-match-" + scheduled.match + "-game-"
+                        + scheduled.game + ".jjr");
+        HeadlessRunner.MatchResult result;
+        try {
+            result = HeadlessRunner.playMatch(names, mapName, maxTicks, scheduled.seed, thinkStrategy, metrics,
+                    replay);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        GameRecord record = new GameRecord(scheduled.round, scheduled.match, scheduled.game, scheduled.a,
+                scheduled.b, scheduled.seed, result.winner, result.duration);
+        synchronized (journal) {
+            journal.println(record.toCsv());
+            journal.flush();
+            gamesPlayed++;
+        }
+        finishedGames.put(key(record.round, record.match, record.game), record);
+    }
+
+    // Updates standings and ratings from a finished round, always in match and game order
+    private void score(List<Pairing> pairings) {
+        ArrayList<String> advancing = new ArrayList<>();
+        for (Pairing pairing : pairings) {
+            Standing a = standings.get(pairing.a);
+            if (pairing.b == null) {
+                a.points += 1;
+                a.hadBye = true;
+                advancing.add(pairing.a);
+                continue;
+            }
+            Standing b = standings.get(pairing.b);
+            a.opponents.add(b.name);
+            b.opponents.add(a.name);
+            int winsA = 0, winsB = 0;
+            for (int game = 0; game < gamesPerMatch; game++) {
+                GameRecord record = finishedGames.get(key(pairing.round, pairing.index, game));
+                double scoreA;
+                if (a.name.equals(record.winner)) {
+                    scoreA = 1;
+                    winsA++;
+                    a.gameWins++;
+                    b.gameLosses++;
+                } else if (b.name.equals(record.winner)) {
+                    scoreA = 0;
+                    winsB++;
+                    b.gameWins++;
+                    a.gameLosses++;
+                } else {
+                    scoreA = 0.5;
+                    a.gameTies++;
+                    b.gameTies++;
+                }
+                ratings.addEloResult(a.name, b.name, scoreA);
+                ratings.addGlickoResult(a.name, b.name, scoreA);
+            }
+            if (winsA > winsB) {
+                a.points += 1;
+            } else if (winsB > winsA) {
+                b.points += 1;
+            } else {
+                a.points += 0.5;
+                b.points += 0.5;
+            }
+            // A drawn elimination match goes to the better seed
+            boolean aAdvances = winsA > winsB || (winsA == winsB && a.seedIndex < b.seedIndex);
+            advancing.add(aAdvances ? a.name : b.name);
+        }
+        ratings.endGlickoPeriod();
+        if (format == Format.SINGLE_ELIMINATION) {
+            bracket = advancing;
+        }
+    }
+
+    private static String key(int round, int match, int game) {
+        return round + ":" + match + ":" + game;
+    }
+
+    // Mixes the tournament seed with a game's position so every game gets its own well spread seed
+    static long gameSeed(long baseSeed, int round, int match, int game) {
+        long z = baseSeed + 0x9E3779B97F4A7C15L * (1 + ((long) round << 40 | (long) match << 20 | game));
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Reads back any games already played with these settings, then opens the journal for appending
+    private void openJournal(PrintStream out) throws IOException {
+        if (Files.exists(journalPath) && Files.size(journalPath) > 0) {
+            List<String> lines = Files.readAllLines(journalPath, StandardCharsets.UTF_8);
+            HashMap<String, String> header = parseHeader(lines.get(0));
+            if (baseSeed == null && header.containsKey("seed")) {
+                baseSeed = Long.parseLong(header.get("seed"));
+            }
+            if (!header.equals(parseHeader(journalHeader()))) {
+                throw new IllegalStateException("Journal " + journalPath + " is from a different tournament ("
+                        + lines.get(0) + "); delete it or pass a different --journal");
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                if (line.isEmpty() || line.startsWith("#") || line.equals(JOURNAL_COLUMNS)) {
+                    continue;
+                }
+                try {
+                    GameRecord record = GameRecord.fromCsv(line);
+                    finishedGames.put(key(record.round, record.match, record.game), record);
+                } catch (RuntimeException e) {
+                    // Most likely the line being written when the last run died
+                    System.err.println("Skipping unreadable journal line: " + line);
+                }
+            }
+            endWithNewline(journalPath);
+            out.println("Resuming from " + journalPath + ": " + finishedGames.size() + " games already played");
+        } else {
+            if (baseSeed == null) {
+                baseSeed = new Random().nextLong();
+            }
+            Files.write(journalPath, List.of(journalHeader(), JOURNAL_COLUMNS), StandardCharsets.UTF_8);
+        }
+        BufferedWriter writer = Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        journal = new PrintWriter(writer);
+    }
+
+    private String journalHeader() {
+        return "# format=" + format + " games=" + gamesPerMatch + " rounds=" + roundCountForHeader() + " map="
+                + mapName + " maxTicks=" + maxTicks + " seed=" + baseSeed + " robots=" + String.join(";", entrants);
+    }
+
+    private int roundCountForHeader() {
+        return format == Format.SWISS ? swissRounds : 0;
+    }
+
+    private static HashMap<String, String> parseHeader(String line) {
+        HashMap<String, String> header = new HashMap<>();
+        for (String part : line.replaceFirst("^#\\s*", "").split(" ")) {
+            int equals = part.indexOf('=');
+            if (equals > 0) {
+                header.put(part.substring(0, equals), part.substring(equals + 1));
+            }
+        }
+        return header;
+    }
+
+    // A crash can leave half a line behind; make sure new games start on a line of their own
+    private static void endWithNewline(Path path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            if (file.length() > 0) {
+                file.seek(file.length() - 1);
+                if (file.read() != '\n') {
+                    file.write('\n');
+                }
+            }
+        }
+    }
+
+    private List<Standing> finalStandings() {
+        ArrayList<Standing> ranked = new ArrayList<>(standings.values());
+        Collections.sort(ranked, (x, y) -> {
+            if (x.points != y.points) {
+                return Double.compare(y.points, x.points);
+            }
+            double ratingX = ratings.getElo(x.name), ratingY = ratings.getElo(y.name);
+            if (ratingX != ratingY) {
+                return Double.compare(ratingY, ratingX);
+            }
+            return Integer.compare(x.seedIndex, y.seedIndex);
+        });
+        return ranked;
+    }
+
+    private void writeResults() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("rank,robot,points,gameWins,gameLosses,gameTies,elo,glicko,glickoDeviation");
+        int rank = 1;
+        for (Standing standing : finalStandings()) {
+            lines.add(String.format("%d,%s,%.1f,%d,%d,%d,%.1f,%.1f,%.1f", rank++, standing.name, standing.points,
+                    standing.gameWins, standing.gameLosses, standing.gameTies, ratings.getElo(standing.name),
+                    ratings.getGlicko(standing.name), ratings.getDeviation(standing.name)));
+        }
+        Files.write(resultsPath, lines, StandardCharsets.UTF_8);
+    }
+
+    private void printReport(PrintStream out, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        out.println(format + " tournament of " + entrants.size() + " robots on " + mapName + ", " + gamesPerMatch
+                + " games per match, seed " + baseSeed);
+        out.println(String.format("  %-4s %-20s %6s %11s %7s %7s", "Rank", "Robot", "Points", "W-L-T", "Elo",
+                "Glicko"));
+        int rank = 1;
+        for (Standing standing : finalStandings()) {
+            String record = standing.gameWins + "-" + standing.gameLosses + "-" + standing.gameTies;
+            out.println(String.format("  %-4d %-20s %6.1f %11s %7.0f %7.0f", rank++, standing.name, standing.points,
+                    record, ratings.getElo(standing.name), ratings.getGlicko(standing.name)));
+        }
+        out.println(String.format("Played %d games in %.2f s using %d threads (%.0f games/hour)", gamesPlayed,
+                seconds, threads, gamesPlayed / seconds * 3600));
+        out.println("Results written to " + resultsPath + ", games to " + journalPath);
+        if (metrics != null) {
+            metrics.printReport(out);
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package bcc.javaJostle;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import javax.imageio.ImageIO;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.ArrayList;
-import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Utilities {
     public static BufferedImage WALL_IMAGE;
@@ -34,7 +42,33 @@ public class Utilities {
 
     public static ArrayList<Integer> keysPressed = new ArrayList<Integer>();
 
+    // Every image loaded so far, by resource name. Missing images are remembered as empty
+    private static final ConcurrentHashMap<String, Optional<BufferedImage>> imageCache = new ConcurrentHashMap<>();
+    // When true no images are loaded at all, for simulations that never draw anything
+    private static volatile boolean headless = false;
+
+    static {
+        // Decode straight from memory instead of through a temp file
+        ImageIO.setUseCache(false);
+    }
+
+    public static void setHeadless(boolean enabled) {
+        headless = enabled;
+    }
+
+    public static boolean isHeadless() {
+        return headless;
+    }
+
+    // Loads an image from resources/images, at most once per process. Returns null in headless mode
     public static BufferedImage loadImage(String imgName) {
+        if (headless || imgName == null) {
+            return null;
+        }
+        return imageCache.computeIfAbsent(imgName, name -> Optional.ofNullable(readImage(name))).orElse(null);
+    }
+
+    private static BufferedImage readImage(String imgName) {
         try {
             // Path relative to the resources folder
             String resourcePath = "/images/" + imgName;
@@ -56,12 +90,18 @@ public class Utilities {
     }
 
     public static void loadImages() {
+        if (headless) {
+            return;
+        }
         // Use the loadImage method for each image
         WALL_IMAGE = loadImage("wall.png");
         GRASS_IMAGE = loadImage("grass.png");
         MUD_IMAGE = loadImage("mud.png");
         ROBOT_ERROR = loadImage("robotError.png");
         DEFAULT_PROJECTILE_IMAGE = loadImage("defaultProjectile.png");
+        HEALTH_PACK_IMAGE = loadImage("healthPack.png");
+        SPEED_PACK_IMAGE = loadImage("speedPack.png");
+        ATTACK_PACK_IMAGE = loadImage("attackPack.png");
 
         // Optional: Add checks here if any image failed to load, though loadImage
         // already prints errors
@@ -76,39 +116,193 @@ public class Utilities {
         }
     }
 
+    /**
+     * Trims the fully transparent rows and columns around an image. The result shares
+     * src's pixels; an image with nothing visible becomes a blank 1x1 image.
+     */
     public static BufferedImage cropToContent(BufferedImage src) {
         int width = src.getWidth();
         int height = src.getHeight();
+        if (!src.getColorModel().hasAlpha()) {
+            return src.getSubimage(0, 0, width, height); // Every pixel is opaque
+        }
+        AlphaScanner alpha = AlphaScanner.of(src);
 
+        // Work in from the top and bottom to the first rows with anything visible
+        int minY = 0;
+        while (minY < height && alpha.firstVisible(minY, 0, width) < 0) {
+            minY++;
+        }
+        if (minY == height) {
+            // No visible content
+            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        }
+        int maxY = height - 1;
+        while (alpha.firstVisible(maxY, 0, width) < 0) {
+            maxY--;
+        }
+
+        // Then each row only needs looking at outside the columns already known to be visible
         int minX = width;
-        int minY = height;
-        int maxX = 0;
-        int maxY = 0;
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int pixel = src.getRGB(x, y);
-                int alpha = (pixel >> 24) & 0xff;
-
-                if (alpha > 0) {
-                    if (x < minX)
-                        minX = x;
-                    if (y < minY)
-                        minY = y;
-                    if (x > maxX)
-                        maxX = x;
-                    if (y > maxY)
-                        maxY = y;
+        int maxX = -1;
+        for (int y = minY; y <= maxY && (minX > 0 || maxX < width - 1); y++) {
+            int first = alpha.firstVisible(y, 0, minX);
+            if (first >= 0) {
+                minX = first;
+            }
+            int last = alpha.lastVisible(y, Math.max(maxX + 1, minX), width);
+            if (last >= 0) {
+                maxX = last;
+            }
+        }
+
+        return src.getSubimage(minX, minY, (maxX - minX + 1), (maxY - minY + 1));
+    }
+
+    // Finds visible (alpha > 0) pixels in part of a row. The common image layouts are
+    // read straight from their pixel arrays; anything else goes through getRGB()
+    private abstract static class AlphaScanner {
+        // The first x in [from, to) on row y with a visible pixel, or -1
+        abstract int firstVisible(int y, int from, int to);
+
+        // The last x in [from, to) on row y with a visible pixel, or -1
+        abstract int lastVisible(int y, int from, int to);
+
+        static AlphaScanner of(BufferedImage src) {
+            ColorModel colorModel = src.getColorModel();
+            WritableRaster raster = src.getRaster();
+            SampleModel sampleModel = raster.getSampleModel();
+            DataBuffer buffer = raster.getDataBuffer();
+            int alphaBand = colorModel.getNumComponents() - 1;
+            // With 8 alpha bits the raw sample is exactly the alpha getRGB() would give
+            boolean alpha8 = colorModel.getComponentSize(alphaBand) == 8
+                    && sampleModel.getNumBands() == colorModel.getNumComponents();
+            // Raster coordinates to sample model coordinates, for subimages
+            int dx = -raster.getSampleModelTranslateX();
+            int dy = -raster.getSampleModelTranslateY();
+
+            if (alpha8 && colorModel instanceof DirectColorModel && sampleModel instanceof SinglePixelPackedSampleModel
+                    && buffer instanceof DataBufferInt) {
+                // TYPE_INT_ARGB and friends: one int per pixel
+                SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) sampleModel;
+                return new IntScanner(((DataBufferInt) buffer).getData(),
+                        buffer.getOffset() + packed.getOffset(dx, dy), packed.getScanlineStride(),
+                        packed.getBitMasks()[alphaBand], packed.getBitOffsets()[alphaBand]);
+            }
+            if (alpha8 && colorModel instanceof ComponentColorModel && sampleModel instanceof ComponentSampleModel
+                    && buffer instanceof DataBufferByte) {
+                // TYPE_4BYTE_ABGR and most PNGs with alpha: interleaved bytes
+                ComponentSampleModel component = (ComponentSampleModel) sampleModel;
+                int bank = component.getBankIndices()[alphaBand];
+                return new ByteScanner(((DataBufferByte) buffer).getData(bank),
+                        buffer.getOffsets()[bank] + component.getOffset(dx, dy, alphaBand),
+                        component.getScanlineStride(), component.getPixelStride());
+            }
+            return new RGBScanner(src);
+        }
+    }
+
+    private static final class IntScanner extends AlphaScanner {
+        private final int[] data;
+        private final int origin; // Index of pixel (0, 0)
+        private final int scanline;
+        private final int mask;
+        private final int shift;
+
+        IntScanner(int[] data, int origin, int scanline, int mask, int shift) {
+            this.data = data;
+            this.origin = origin;
+            this.scanline = scanline;
+            this.mask = mask;
+            this.shift = shift;
+        }
+
+        @Override
+        int firstVisible(int y, int from, int to) {
+            int row = origin + y * scanline;
+            for (int x = from; x < to; x++) {
+                if ((data[row + x] & mask) >>> shift != 0) {
+                    return x;
                 }
             }
+            return -1;
         }
 
-        if (maxX < minX || maxY < minY) {
-            // No visible content
-            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        @Override
+        int lastVisible(int y, int from, int to) {
+            int row = origin + y * scanline;
+            for (int x = to - 1; x >= from; x--) {
+                if ((data[row + x] & mask) >>> shift != 0) {
+                    return x;
+                }
+            }
+            return -1;
         }
+    }
 
-        return src.getSubimage(minX, minY, (maxX - minX + 1), (maxY - minY + 1));
+    private static final class ByteScanner extends AlphaScanner {
+        private final byte[] data;
+        private final int origin; // Index of the alpha byte of pixel (0, 0)
+        private final int scanline;
+        private final int pixelStride;
+
+        ByteScanner(byte[] data, int origin, int scanline, int pixelStride) {
+            this.data = data;
+            this.origin = origin;
+            this.scanline = scanline;
+            this.pixelStride = pixelStride;
+        }
+
+        @Override
+        int firstVisible(int y, int from, int to) {
+            int row = origin + y * scanline;
+            for (int x = from; x < to; x++) {
+                if (data[row + x * pixelStride] != 0) {
+                    return x;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int lastVisible(int y, int from, int to) {
+            int row = origin + y * scanline;
+            for (int x = to - 1; x >= from; x--) {
+                if (data[row + x * pixelStride] != 0) {
+                    return x;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // Indexed colour, 16-bit alpha and other unusual layouts
+    private static final class RGBScanner extends AlphaScanner {
+        private final BufferedImage src;
+
+        RGBScanner(BufferedImage src) {
+            this.src = src;
+        }
+
+        @Override
+        int firstVisible(int y, int from, int to) {
+            for (int x = from; x < to; x++) {
+                if ((src.getRGB(x, y) >>> 24) != 0) {
+                    return x;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        int lastVisible(int y, int from, int to) {
+            for (int x = to - 1; x >= from; x--) {
+                if ((src.getRGB(x, y) >>> 24) != 0) {
+                    return x;
+                }
+            }
+            return -1;
+        }
     }
 
     public static void handleKeyPressed(int keyCode) {
@@ -159,80 +353,8 @@ public class Utilities {
         }
     }
 
+    // Robot classes are loaded and cached by RobotRegistry
     public static Robot createRobot(int x, int y, String className) {
-        // The URL for the '/robots' resource directory.
-        // This will be used if className is not "MyRobot".
-        
-        // Attempt to define robotsResourceRootUrl from a specific source directory
-        File specificSrcRobotsDir = new File("app/src/main/resources/robots"); // Path relative to project root
-        URL robotsResourceRootUrl = null;
-
-        if (specificSrcRobotsDir.exists() && specificSrcRobotsDir.isDirectory()) {
-            try {
-                robotsResourceRootUrl = specificSrcRobotsDir.toURI().toURL();
-                // Optional: Add a log to confirm which path is being used
-                // System.out.println("Attempting to use direct src path for robots: " + robotsResourceRootUrl);
-            } catch (java.net.MalformedURLException e) {
-                System.err.println("Error creating URL for src robots directory: " + specificSrcRobotsDir.getAbsolutePath() + " - " + e.getMessage());
-                // robotsResourceRootUrl will remain null, handled by later checks
-            }
-        } 
-
-
-        if (className.equals("MyRobot")) {
-            // Assuming MyRobot is always on the standard classpath
-            return new MyRobot(x, y);
-        } else {
-            // For other robot classes, attempt to load them using URLClassLoader
-            // from the '/robots' resource directory.
-            if (robotsResourceRootUrl == null) {
-                System.err.println("Robots resource directory '/robots' not found in classpath. Cannot dynamically load: " + className);
-                // As a fallback, try to load the class directly from the classpath.
-                // This might be useful if some robots are packaged normally.
-                try {
-                    System.out.println("Fallback: Attempting to load robot class directly from classpath: bcc.javaJostle." + className);
-                    Class<?> loadedClass = Class.forName("bcc.javaJostle." + className);
-                    if (Robot.class.isAssignableFrom(loadedClass)) {
-                        Constructor<?> constructor = loadedClass.getConstructor(int.class, int.class);
-                        return (Robot) constructor.newInstance(x, y);
-                    } else {
-                        System.err.println("Class bcc.javaJostle." + className + " (loaded from classpath) does not extend Robot.");
-                        return null; // Class found but not a Robot or doesn't have the right constructor
-                    }
-                } catch (Exception directLoadException) {
-                    System.err.println("Fallback failed: Could not load bcc.javaJostle." + className + " directly from classpath: " + directLoadException.getMessage());
-                    return null; // Fallback loading failed
-                }
-            }
-
-            // If robotsResourceRootUrl is valid, proceed with URLClassLoader
-            try {
-                URL[] urls = { robotsResourceRootUrl };
-                // Using Utilities.class.getClassLoader() as the parent.
-                // The original code used Game.class.getClassLoader().
-                URLClassLoader classLoader = new URLClassLoader(urls, Utilities.class.getClassLoader());
-                
-                System.out.println("Attempting to load robot class via URLClassLoader: bcc.javaJostle." + className + " from " + robotsResourceRootUrl);
-                // Assumes robot classes are in the 'bcc.javaJostle' package within the /robots directory
-                Class<?> loadedClass = classLoader.loadClass("bcc.javaJostle." + className);
-
-                if (Robot.class.isAssignableFrom(loadedClass)) {
-                    Constructor<?> constructor = loadedClass.getConstructor(int.class, int.class);
-                    Robot robot = (Robot) constructor.newInstance(x, y);
-                    return robot;
-                } else {
-                    System.err.println("Class " + className + " (loaded via URLClassLoader from " + robotsResourceRootUrl + ") does not extend Robot.");
-                }
-            } catch (ClassNotFoundException e) {
-                System.err.println("Robot class not found via URLClassLoader: bcc.javaJostle." + className + " in " + robotsResourceRootUrl + " - " + e.getMessage());
-            } catch (NoSuchMethodException e) {
-                System.err.println("Constructor (int, int) not found for " + className + " (loaded via URLClassLoader from " + robotsResourceRootUrl + ") - " + e.getMessage());
-            } catch (Exception e) {
-                System.err.println("Error loading or instantiating " + className + " via URLClassLoader from " + robotsResourceRootUrl + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
-        // Return null if MyRobot was not the class, and dynamic/fallback loading failed.
-        return null;
+        return RobotRegistry.create(className, x, y);
     }
 }
\ No newline at end of file
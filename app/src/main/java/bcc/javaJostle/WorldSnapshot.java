@@ -0,0 +1,155 @@
+package bcc.javaJostle;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+/**
+ * Where every robot, projectile and power-up was at the end of one tick.
+ *
+ * Snapshots never change once built, so they can be drawn on one thread while the
+ * game carries on somewhere else. Robot i is robot i in the game's robot list.
+ */
+public final class WorldSnapshot {
+    public static final class RobotState {
+        public final int x, y, health, maxHealth;
+        public final boolean alive, speedBoost, attackBoost, successfulThink;
+
+        public RobotState(int x, int y, int health, int maxHealth, boolean alive, boolean speedBoost,
+                boolean attackBoost, boolean successfulThink) {
+            this.x = x;
+            this.y = y;
+            this.health = health;
+            this.maxHealth = maxHealth;
+            this.alive = alive;
+            this.speedBoost = speedBoost;
+            this.attackBoost = attackBoost;
+            this.successfulThink = successfulThink;
+        }
+    }
+
+    public static final class ProjectileState {
+        public final int owner; // index of the robot that fired it, -1 if none
+        public final double x, y;
+
+        public ProjectileState(int owner, double x, double y) {
+            this.owner = owner;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static final class PowerUpState {
+        public final double x, y;
+        public final String type;
+
+        public PowerUpState(double x, double y, String type) {
+            this.x = x;
+            this.y = y;
+            this.type = type;
+        }
+    }
+
+    private final int tick;
+    private final RobotState[] robots;
+    private final ProjectileState[] projectiles;
+    private final PowerUpState[] powerUps;
+
+    public WorldSnapshot(int tick, RobotState[] robots, ProjectileState[] projectiles, PowerUpState[] powerUps) {
+        this.tick = tick;
+        this.robots = robots;
+        this.projectiles = projectiles;
+        this.powerUps = powerUps;
+    }
+
+    // Copies the state of a live game
+    static WorldSnapshot of(Game game) {
+        ArrayList<Robot> gameRobots = game.getRobots();
+        RobotState[] robots = new RobotState[gameRobots.size()];
+        for (int i = 0; i < robots.length; i++) {
+            Robot robot = gameRobots.get(i);
+            robots[i] = new RobotState(robot.getX(), robot.getY(), robot.getHealth(), robot.getMaxHealth(),
+                    robot.isAlive(), robot.hasSpeedBoost(), robot.hasAttackBoost(), robot.isSuccessfulThink());
+        }
+        ArrayList<Projectile> gameProjectiles = game.getProjectiles();
+        ProjectileState[] projectiles = new ProjectileState[gameProjectiles.size()];
+        for (int i = 0; i < projectiles.length; i++) {
+            Projectile projectile = gameProjectiles.get(i);
+            projectiles[i] = new ProjectileState(projectile.getOwnerIndex(), projectile.getX(), projectile.getY());
+        }
+        ArrayList<PowerUp> gamePowerUps = game.getPowerUps();
+        PowerUpState[] powerUps = new PowerUpState[gamePowerUps.size()];
+        for (int i = 0; i < powerUps.length; i++) {
+            PowerUp powerUp = gamePowerUps.get(i);
+            powerUps[i] = new PowerUpState(powerUp.getX(), powerUp.getY(), powerUp.getType());
+        }
+        return new WorldSnapshot(game.getDuration(), robots, projectiles, powerUps);
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getRobotCount() {
+        return robots.length;
+    }
+
+    public RobotState getRobot(int index) {
+        return robots[index];
+    }
+
+    public int getProjectileCount() {
+        return projectiles.length;
+    }
+
+    public ProjectileState getProjectile(int index) {
+        return projectiles[index];
+    }
+
+    public int getPowerUpCount() {
+        return powerUps.length;
+    }
+
+    public PowerUpState getPowerUp(int index) {
+        return powerUps[index];
+    }
+
+    // Draws the world the same way a live game is drawn. Images are indexed by robot
+    void draw(Graphics g, MapRenderer mapRenderer, BufferedImage[] robotImages, BufferedImage[] projectileImages, int width,
+            int height, int cameraX, int cameraY, double zoomFactor) {
+        if (mapRenderer != null) {
+            mapRenderer.display(g, width, height, cameraX, cameraY, zoomFactor);
+        }
+
+        int robotSize = (int) (Utilities.ROBOT_SIZE * zoomFactor);
+        for (int i = 0; i < robots.length; i++) {
+            RobotState robot = robots[i];
+            if (robot.alive && robotImages[i] != null) {
+                int screenX = (int) (robot.x * zoomFactor - cameraX);
+                int screenY = (int) (robot.y * zoomFactor - cameraY);
+                g.drawImage(robotImages[i], screenX, screenY, robotSize, robotSize, null);
+            }
+        }
+
+        int projectileSize = (int) (Utilities.PROJECTILE_SIZE * zoomFactor);
+        for (ProjectileState projectile : projectiles) {
+            BufferedImage image = projectile.owner >= 0 ? projectileImages[projectile.owner]
+                    : Utilities.DEFAULT_PROJECTILE_IMAGE;
+            if (image != null) {
+                int screenX = (int) (projectile.x * zoomFactor - cameraX);
+                int screenY = (int) (projectile.y * zoomFactor - cameraY);
+                g.drawImage(image, screenX, screenY, projectileSize, projectileSize, null);
+            }
+        }
+
+        int powerUpSize = (int) (Utilities.POWER_UP_SIZE * zoomFactor);
+        for (PowerUpState powerUp : powerUps) {
+            BufferedImage image = PowerUp.imageFor(powerUp.type);
+            if (image != null) {
+                int screenX = (int) (powerUp.x * zoomFactor - cameraX);
+                int screenY = (int) (powerUp.y * zoomFactor - cameraY);
+                g.drawImage(image, screenX, screenY, powerUpSize, powerUpSize, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package bcc.javaJostle;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+public class CropToContentTest {
+    // The bounds the old getRGB() loop found: {minX, minY, width, height}, or 1x1 when nothing is visible
+    private int[] expectedBounds(BufferedImage image) {
+        int minX = image.getWidth(), minY = image.getHeight(), maxX = -1, maxY = -1;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) >>> 24) != 0) {
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        return maxX < 0 ? new int[] { -1, -1, 1, 1 } : new int[] { minX, minY, maxX - minX + 1, maxY - minY + 1 };
+    }
+
+    private void assertCropped(String what, BufferedImage image) {
+        int[] bounds = expectedBounds(image);
+        BufferedImage cropped = Utilities.cropToContent(image);
+        assertEquals(what + " width", bounds[2], cropped.getWidth());
+        assertEquals(what + " height", bounds[3], cropped.getHeight());
+        if (bounds[0] >= 0) {
+            for (int y = 0; y < bounds[3]; y++) {
+                for (int x = 0; x < bounds[2]; x++) {
+                    assertEquals(what + " pixel", image.getRGB(bounds[0] + x, bounds[1] + y), cropped.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    // A few scattered visible pixels on a transparent background, drawn through setRGB
+    private void scatter(BufferedImage image, Random random, int count) {
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(image.getWidth());
+            int y = random.nextInt(image.getHeight());
+            image.setRGB(x, y, (1 + random.nextInt(255)) << 24 | random.nextInt(0x1000000));
+        }
+    }
+
+    private BufferedImage sixteenBitAlpha(int width, int height) {
+        ComponentColorModel colorModel = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), true,
+                false, Transparency.TRANSLUCENT, DataBuffer.TYPE_USHORT);
+        WritableRaster raster = colorModel.createCompatibleWritableRaster(width, height);
+        return new BufferedImage(colorModel, raster, false, null);
+    }
+
+    private BufferedImage indexed(int width, int height) {
+        byte[] levels = new byte[256];
+        byte[] alphas = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            levels[i] = (byte) i;
+            alphas[i] = (byte) (i < 16 ? 0 : i);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED,
+                new IndexColorModel(8, 256, levels, levels, levels, alphas));
+    }
+
+    @Test
+    public void matchesGetRGBScanForEveryLayout() {
+        Random random = new Random(5);
+        int[] types = { BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_ARGB_PRE, BufferedImage.TYPE_4BYTE_ABGR,
+                BufferedImage.TYPE_4BYTE_ABGR_PRE, BufferedImage.TYPE_INT_RGB };
+        for (int trial = 0; trial < 40; trial++) {
+            int width = 1 + random.nextInt(70);
+            int height = 1 + random.nextInt(70);
+            int count = trial % 5; // Includes images with nothing visible
+            for (int type : types) {
+                BufferedImage image = new BufferedImage(width, height, type);
+                scatter(image, random, count);
+                assertCropped("type " + type, image);
+            }
+            BufferedImage deep = sixteenBitAlpha(width, height);
+            scatter(deep, random, count);
+            assertCropped("16-bit alpha", deep);
+            BufferedImage indexed = indexed(width, height);
+            scatter(indexed, random, count);
+            assertCropped("indexed", indexed);
+        }
+    }
+
+    @Test
+    public void subimagesUseTheirOwnOrigin() {
+        Random random = new Random(9);
+        int[] types = { BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_4BYTE_ABGR };
+        for (int type : types) {
+            for (int trial = 0; trial < 30; trial++) {
+                BufferedImage image = new BufferedImage(60, 50, type);
+                scatter(image, random, 12);
+                int x = random.nextInt(30);
+                int y = random.nextInt(25);
+                BufferedImage sub = image.getSubimage(x, y, 1 + random.nextInt(60 - x), 1 + random.nextInt(50 - y));
+                assertCropped("subimage of type " + type, sub);
+            }
+        }
+    }
+
+    @Test
+    public void gameImagesCropAsBefore() throws IOException {
+        String[] names = { "wall.png", "grass.png", "randomBot.png", "rock.png", "healthPack.png", "speedPack.png" };
+        for (String name : names) {
+            try (InputStream in = CropToContentTest.class.getResourceAsStream("/images/" + name)) {
+                assertCropped(name, ImageIO.read(in));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package bcc.javaJostle;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.function.Consumer;
+
+public class DeterminismTest {
+    // Plays a game and folds everything that happened each tick into one number
+    private long playAndTrace(long seed) {
+        return playAndTrace(seed, "Standard", game -> { });
+    }
+
+    private long playAndTrace(long seed, Consumer<Game> setup) {
+        return playAndTrace(seed, "Standard", setup);
+    }
+
+    private long playAndTrace(long seed, String mapName, Consumer<Game> setup) {
+        Game game = TestGames.newGame(mapName, seed);
+        setup.accept(game);
+
+        long[] trace = { 17 };
+        TestGames.play(game, g -> trace[0] = traceTick(trace[0], g));
+        return trace[0] * 31 + game.getDuration();
+    }
+
+    // Folds the state at the end of one tick into the trace
+    private static long traceTick(long trace, Game game) {
+        for (Robot robot : game.getRobots()) {
+            trace = trace * 31 + robot.getX();
+            trace = trace * 31 + robot.getY();
+            trace = trace * 31 + robot.getHealth();
+        }
+        for (Projectile projectile : game.getProjectiles()) {
+            trace = trace * 31 + Double.hashCode(projectile.getX());
+            trace = trace * 31 + Double.hashCode(projectile.getY());
+        }
+        for (PowerUp powerUp : game.getPowerUps()) {
+            trace = trace * 31 + powerUp.getType().hashCode();
+        }
+        return trace;
+    }
+
+    @Test
+    public void sameSeedSameGame() {
+        assertEquals(playAndTrace(42), playAndTrace(42));
+        assertEquals(playAndTrace(1234567), playAndTrace(1234567));
+    }
+
+    @Test
+    public void differentSeedDifferentGame() {
+        assertTrue(playAndTrace(1) != playAndTrace(2));
+    }
+
+    @Test
+    public void spatialIndexMatchesLinearScan() {
+        for (long seed = 0; seed < 3; seed++) {
+            assertEquals(playAndTrace(seed, game -> game.setUseSpatialIndex(false)),
+                    playAndTrace(seed, game -> game.setUseSpatialIndex(true)));
+        }
+    }
+
+    @Test
+    public void sweptMovementMatchesPixelSteps() {
+        String[] maps = { "Standard", "Maze", "Giant" };
+        for (String mapName : maps) {
+            for (long seed = 0; seed < 3; seed++) {
+                assertEquals(mapName + " seed " + seed,
+                        playAndTrace(seed, mapName, game -> game.setSweptMovement(false)),
+                        playAndTrace(seed, mapName, game -> game.setSweptMovement(true)));
+            }
+        }
+    }
+
+    @Test
+    public void continuousProjectilesSameSeedSameGame() {
+        for (String mapName : new String[] { "Standard", "Maze" }) {
+            assertEquals(mapName, playAndTrace(7, mapName, game -> game.setContinuousProjectiles(true)),
+                    playAndTrace(7, mapName, game -> game.setContinuousProjectiles(true)));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package bcc.javaJostle;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MapFormatTest {
+    @Test
+    public void textRowsAndTiles() throws IOException {
+        Map map = TestGames.parseMap("W W W\nW G M\r\nW\tM  W");
+        assertEquals(3, map.width());
+        assertEquals(3, map.height());
+        assertArrayEquals(new int[][] { { 0, 0, 0 }, { 0, 1, 2 }, { 0, 2, 0 } }, map.getTiles());
+    }
+
+    @Test
+    public void raggedRowsArePaddedToFirstRowWidth() throws IOException {
+        // Every row is made as wide as the first: short rows are padded with unknown tiles and
+        // long ones cut. Unknown tokens and blank lines are unknown tiles
+        Map map = TestGames.parseMap("  W G X \r\rWW\nG G G G\n   \n");
+        assertEquals(3, map.width());
+        assertEquals(5, map.height());
+        assertArrayEquals(new int[][] { { 0, 1, -1 }, { -1, -1, -1 }, { -1, -1, -1 }, { 1, 1, 1 }, { -1, -1, -1 } },
+                map.getTiles());
+    }
+
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        for (String name : new String[] { "Standard", "Maze", "Giant" }) {
+            Map text = new Map(name);
+            Path file = Files.createTempFile("jostle", ".map");
+            try {
+                text.write(file);
+                assertEquals(name, (text.width() * text.height() + 3) / 4 + 14, Files.size(file));
+                Map binary = Map.read(file);
+                assertEquals(name, text.width(), binary.width());
+                assertEquals(name, text.height(), binary.height());
+                assertArrayEquals(name, text.getTiles(), binary.getTiles());
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void unknownTilesSurviveBinary() throws IOException {
+        Map map = TestGames.parseMap("W ? G\nM");
+        Path file = Files.createTempFile("jostle", ".map");
+        try {
+            map.write(file);
+            assertArrayEquals(map.getTiles(), Map.read(file).getTiles());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void eachGameGetsItsOwnTileGrid() {
+        Game first = TestGames.newGame("Rock", 2, "Standard", 1);
+        Game second = TestGames.newGame("Rock", 2, "Standard", 2);
+        int[][] tiles = first.getMap().getTiles();
+        assertSame(tiles, first.getMap().getTiles());
+        tiles[1][1] = Utilities.WALL + Utilities.GRASS + Utilities.MUD + 1;
+        assertNotSame(tiles, second.getMap().getTiles());
+        assertEquals(second.getMap().tileAt(1, 1), second.getMap().getTiles()[1][1]);
+        assertEquals(MapRegistry.get("Standard").tileAt(1, 1), MapRegistry.get("Standard").getTiles()[1][1]);
+    }
+}
@@ -0,0 +1,110 @@
+package bcc.javaJostle;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class ProjectileCollisionTest {
+    // Two grass tiles, (1, 1) and (2, 1), walled in
+    private Map room() throws IOException {
+        return TestGames.parseMap("W W W W\nW G G W\nW W W W");
+    }
+
+    @Test
+    public void wallHitTimeIsWhenTheLeadingCornerReachesTheWall() throws IOException {
+        Map map = room();
+        // The right corner starts at x = 49 and the wall column starts at 96
+        assertEquals(0.5, ProjectileStore.wallHitTime(map, 40, 40, 94, 0), 1e-9);
+        // Going up, the top corners reach row 0 at y = 32
+        assertEquals(0.25, ProjectileStore.wallHitTime(map, 40, 40, 0, -32), 1e-9);
+        // Going down-right the bottom corners reach row 2 (y = 64) first
+        assertEquals(15 / 20.0, ProjectileStore.wallHitTime(map, 40, 40, 20, 20), 1e-9);
+    }
+
+    @Test
+    public void clearPathHasNoWallHit() throws IOException {
+        Map map = room();
+        assertTrue(Double.isNaN(ProjectileStore.wallHitTime(map, 40, 40, 20, 0)));
+        assertTrue(Double.isNaN(ProjectileStore.wallHitTime(map, 40, 40, 0, 0)));
+        assertTrue(Double.isNaN(ProjectileStore.wallHitTime(map, 70, 50, -30, 4)));
+    }
+
+    @Test
+    public void robotHitTimeUsesTheGrownBox() {
+        // The robot's box grown by the projectile starts at x = 90, 40 pixels on at 80 a tick
+        assertEquals(0.5, ProjectileStore.robotHitTime(50, 100, 80, 0, 100, 95), 1e-9);
+        // Already overlapping
+        assertEquals(0.0, ProjectileStore.robotHitTime(100, 100, 5, 5, 95, 95), 1e-9);
+        // Fast enough to pass straight through in one tick, which sub-steps could miss
+        assertEquals(0.1, ProjectileStore.robotHitTime(0, 100, 1000, 0, 110, 95), 1e-9);
+    }
+
+    @Test
+    public void robotMissesAreNaN() {
+        // Stops short
+        assertTrue(Double.isNaN(ProjectileStore.robotHitTime(50, 100, 30, 0, 100, 95)));
+        // Moving away
+        assertTrue(Double.isNaN(ProjectileStore.robotHitTime(50, 100, -30, 0, 100, 95)));
+        // Slides along the top edge without overlapping
+        assertTrue(Double.isNaN(ProjectileStore.robotHitTime(50, 85, 100, 0, 100, 95)));
+    }
+
+    @Test
+    public void changingTheProjectileListLeavesTheStoreAlone() {
+        Game game = TestGames.newGame("Rock", 2, "Standard", 1);
+        Robot robot = game.getRobots().get(0);
+        for (int i = 0; i < 3; i++) {
+            game.spawnProjectile(robot, robot.getX(), robot.getY(), robot.getX() + 100, robot.getY() + i, 0, 0);
+        }
+        ArrayList<Projectile> handedOut = game.getProjectiles();
+        handedOut.clear();
+        handedOut.add(null);
+        assertEquals(3, game.getProjectileStore().size());
+        game.spawnProjectile(robot, robot.getX(), robot.getY(), robot.getX() + 100, robot.getY(), 0, 0);
+        ArrayList<Projectile> projectiles = game.getProjectiles();
+        assertEquals(4, projectiles.size());
+        for (int i = 0; i < projectiles.size(); i++) {
+            assertEquals(i, projectiles.get(i).getId());
+        }
+    }
+
+    @Test
+    public void impactsReportWhenAndWhereAShotHit() {
+        for (boolean continuous : new boolean[] { false, true }) {
+            Game game = TestGames.newGame("Rock", 2, "Standard", 2); // The target has grass to its left
+            game.setContinuousProjectiles(continuous);
+            Robot shooter = game.getRobots().get(0);
+            Robot target = game.getRobots().get(1);
+            int col = (int) (target.getX() / Utilities.TILE_SIZE);
+            int row = (int) (target.getY() / Utilities.TILE_SIZE);
+            assertEquals(Utilities.GRASS, game.getMap().tileAt(col - 1, row));
+            // 15 pixels short of the target's box, moving 20 a tick
+            double x = target.getX() - Utilities.PROJECTILE_SIZE - 15;
+            double y = target.getY() + 9;
+            game.spawnProjectile(shooter, x, y, (int) x + 100, (int) y, 20, 1);
+            int id = game.getProjectiles().get(0).getId();
+            game.getProjectileStore().updateAll();
+
+            ArrayList<Impact> impacts = game.getImpacts();
+            assertEquals(1, impacts.size());
+            Impact impact = impacts.get(0);
+            assertEquals(id, impact.getProjectileId());
+            assertSame(shooter, impact.getOwner());
+            assertSame(target, impact.getRobot());
+            assertFalse(impact.isWall());
+            // Exactly three quarters of the way, or at the end of the fourth of five sub-steps
+            double time = continuous ? 0.75 : 0.8;
+            assertEquals(time, impact.getTime(), 1e-9);
+            assertEquals(x + 20 * time, impact.getX(), 1e-9);
+            assertEquals(y, impact.getY(), 1e-9);
+
+            game.getProjectileStore().removeDead();
+            game.getProjectileStore().updateAll();
+            assertEquals(0, game.getImpacts().size());
+        }
+    }
+}
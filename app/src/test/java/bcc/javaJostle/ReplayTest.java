@@ -0,0 +1,141 @@
+package bcc.javaJostle;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ReplayTest {
+    // Plays a recorded game and keeps a snapshot of every tick, starting with tick 0
+    private ArrayList<WorldSnapshot> playAndRecord(Path file, long seed) throws IOException {
+        Game game = TestGames.newGame("Standard", seed);
+        game.startRecording(file);
+        ArrayList<WorldSnapshot> ticks = new ArrayList<>();
+        ticks.add(WorldSnapshot.of(game));
+        TestGames.play(game, g -> ticks.add(WorldSnapshot.of(g)));
+        return ticks;
+    }
+
+    private void assertSameWorld(WorldSnapshot expected, WorldSnapshot actual) {
+        assertEquals(expected.getTick(), actual.getTick());
+        String at = "tick " + expected.getTick();
+        assertEquals(at, expected.getRobotCount(), actual.getRobotCount());
+        for (int i = 0; i < expected.getRobotCount(); i++) {
+            WorldSnapshot.RobotState want = expected.getRobot(i), got = actual.getRobot(i);
+            assertEquals(at, want.x, got.x);
+            assertEquals(at, want.y, got.y);
+            assertEquals(at, want.health, got.health);
+            assertEquals(at, want.alive, got.alive);
+            assertEquals(at, want.speedBoost, got.speedBoost);
+            assertEquals(at, want.attackBoost, got.attackBoost);
+        }
+        // Projectiles are replayed from their velocity in floats, so allow a little drift
+        assertEquals(at, expected.getProjectileCount(), actual.getProjectileCount());
+        boolean[] matched = new boolean[actual.getProjectileCount()];
+        for (int i = 0; i < expected.getProjectileCount(); i++) {
+            WorldSnapshot.ProjectileState want = expected.getProjectile(i);
+            boolean found = false;
+            for (int j = 0; j < actual.getProjectileCount() && !found; j++) {
+                WorldSnapshot.ProjectileState got = actual.getProjectile(j);
+                if (!matched[j] && want.owner == got.owner && Math.abs(want.x - got.x) < 0.05
+                        && Math.abs(want.y - got.y) < 0.05) {
+                    matched[j] = found = true;
+                }
+            }
+            assertTrue(at + " projectile at " + want.x + ", " + want.y, found);
+        }
+        assertEquals(at, expected.getPowerUpCount(), actual.getPowerUpCount());
+        for (int i = 0; i < expected.getPowerUpCount(); i++) {
+            assertEquals(at, expected.getPowerUp(i).x, actual.getPowerUp(i).x, 0.001);
+            assertEquals(at, expected.getPowerUp(i).y, actual.getPowerUp(i).y, 0.001);
+            assertEquals(at, expected.getPowerUp(i).type, actual.getPowerUp(i).type);
+        }
+    }
+
+    @Test
+    public void playbackMatchesGame() throws IOException {
+        Path file = Files.createTempFile("replay", ".jjr");
+        try {
+            ArrayList<WorldSnapshot> ticks = playAndRecord(file, 7);
+            try (ReplayReader reader = new ReplayReader(file)) {
+                assertTrue(reader.isFinished());
+                assertEquals(ticks.size() - 1, reader.getLastTick());
+                assertSameWorld(ticks.get(0), reader.seek(0));
+                while (reader.hasNext()) {
+                    WorldSnapshot snapshot = reader.next();
+                    assertSameWorld(ticks.get(snapshot.getTick()), snapshot);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void seekMatchesGame() throws IOException {
+        Path file = Files.createTempFile("replay", ".jjr");
+        try {
+            ArrayList<WorldSnapshot> ticks = playAndRecord(file, 11);
+            try (ReplayReader reader = new ReplayReader(file)) {
+                int last = reader.getLastTick();
+                int[] targets = { last, 0, last / 2, last / 2 + 1, 99, 100, 101, last / 3, last - 1 };
+                for (int target : targets) {
+                    assertSameWorld(ticks.get(target), reader.seek(target));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void projectileWithoutOwnerKeepsNoOwner() throws IOException {
+        Path file = Files.createTempFile("replay", ".jjr");
+        try {
+            Game game = TestGames.newGame("Standard", 3);
+            game.startRecording(file);
+            // A still projectile in the middle of a grass tile away from the robots
+            int tile = game.smartSpawn();
+            int x = tile % game.getMap().width() * Utilities.TILE_SIZE + Utilities.TILE_SIZE / 2;
+            int y = tile / game.getMap().width() * Utilities.TILE_SIZE + Utilities.TILE_SIZE / 2;
+            game.spawnProjectile(null, x, y, x + 100, y, 0, 0);
+            game.step();
+            game.stopRecording();
+            try (ReplayReader reader = new ReplayReader(file)) {
+                WorldSnapshot snapshot = reader.seek(reader.getLastTick());
+                boolean found = false;
+                for (int i = 0; i < snapshot.getProjectileCount(); i++) {
+                    found |= snapshot.getProjectile(i).owner == -1;
+                }
+                assertTrue(found);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void unfinishedReplayStillPlays() throws IOException {
+        Path file = Files.createTempFile("replay", ".jjr");
+        Path cut = Files.createTempFile("replay-cut", ".jjr");
+        try {
+            ArrayList<WorldSnapshot> ticks = playAndRecord(file, 7);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(cut, Arrays.copyOf(bytes, bytes.length / 2));
+            try (ReplayReader reader = new ReplayReader(cut)) {
+                assertFalse(reader.isFinished());
+                assertTrue(reader.getLastTick() > 0);
+                assertSameWorld(ticks.get(reader.getLastTick()), reader.seek(reader.getLastTick()));
+                assertSameWorld(ticks.get(reader.getLastTick() / 2), reader.seek(reader.getLastTick() / 2));
+            }
+        } finally {
+            Files.delete(file);
+            Files.delete(cut);
+        }
+    }
+}
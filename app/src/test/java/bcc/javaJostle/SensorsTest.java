@@ -0,0 +1,116 @@
+package bcc.javaJostle;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class SensorsTest {
+    private static double distance(Robot a, Robot b) {
+        return Math.hypot(a.getX() - b.getX(), a.getY() - b.getY());
+    }
+
+    @Test
+    public void nearestEnemyAndEnemiesWithinMatchAScan() {
+        Game game = TestGames.newGame("Rock", 12, "Giant", 5);
+        Sensors sensors = new Sensors(game);
+        for (Robot self : game.getRobots()) {
+            Robot nearest = null;
+            for (Robot other : game.getRobots()) {
+                if (other != self && (nearest == null || distance(self, other) < distance(self, nearest))) {
+                    nearest = other;
+                }
+            }
+            assertSame(nearest, sensors.nearestEnemy(self));
+            assertSame(nearest, sensors.nearestEnemy(self)); // Cached the second time
+
+            double radius = 300;
+            ArrayList<Robot> within = sensors.enemiesWithin(self, radius);
+            int expected = 0;
+            for (Robot other : game.getRobots()) {
+                if (other != self && distance(self, other) <= radius) {
+                    expected++;
+                    assertTrue(within.contains(other));
+                }
+            }
+            assertEquals(expected, within.size());
+            for (int k = 1; k < within.size(); k++) {
+                assertTrue(distance(self, within.get(k - 1)) <= distance(self, within.get(k)));
+            }
+        }
+    }
+
+    @Test
+    public void lineOfSightIsSymmetric() {
+        Game game = TestGames.newGame("Rock", 8, "Maze", 5);
+        Sensors sensors = new Sensors(game);
+        boolean sawBlocked = false;
+        for (Robot a : game.getRobots()) {
+            assertTrue(sensors.hasLineOfSight(a, a));
+            for (Robot b : game.getRobots()) {
+                assertEquals(sensors.hasLineOfSight(a, b), new Sensors(game).hasLineOfSight(b, a));
+                sawBlocked |= !sensors.hasLineOfSight(a, b);
+            }
+        }
+        assertTrue(sawBlocked);
+    }
+
+    @Test
+    public void incomingProjectilesLeavesOutOwnShots() {
+        Game game = TestGames.newGame("Rock", 2, "Standard", 5);
+        Robot shooter = game.getRobots().get(0);
+        Robot target = game.getRobots().get(1);
+        // Fired from just beside the target straight at it, so no wall can be in the way
+        int targetX = target.getX() + Utilities.ROBOT_SIZE / 2;
+        int targetY = target.getY() + Utilities.ROBOT_SIZE / 2;
+        game.spawnProjectile(shooter, targetX - 20, targetY - Utilities.PROJECTILE_SIZE / 2, targetX + 100, targetY
+                - Utilities.PROJECTILE_SIZE / 2, 10, 10);
+        Sensors sensors = new Sensors(game);
+        assertEquals(1, sensors.incomingProjectiles(target, 3).size());
+        assertTrue(sensors.incomingProjectiles(target, 0).isEmpty());
+        assertTrue(sensors.incomingProjectiles(shooter, 100).isEmpty());
+        assertFalse(sensors.incomingProjectiles(target, 1).isEmpty());
+    }
+
+    @Test
+    public void nearestPowerUpFiltersByType() {
+        Game game = TestGames.newGame("Rock", 2, "Standard", 5);
+        Robot self = game.getRobots().get(0);
+        Random random = new Random(3);
+        for (int i = 0; i < 6; i++) {
+            game.getPowerUps().add(new PowerUp(random.nextInt(600), random.nextInt(400), random));
+        }
+        Sensors sensors = new Sensors(game);
+        for (String type : new String[] { null, "health", "speed", "attack" }) {
+            PowerUp nearest = null;
+            for (PowerUp powerUp : game.getPowerUps()) {
+                if ((type == null || type.equals(powerUp.getType())) && (nearest == null
+                        || Math.hypot(powerUp.getX() - self.getX(), powerUp.getY() - self.getY()) < Math
+                                .hypot(nearest.getX() - self.getX(), nearest.getY() - self.getY()))) {
+                    nearest = powerUp;
+                }
+            }
+            assertSame(type, nearest, sensors.nearestPowerUp(self, type));
+        }
+    }
+
+    @Test
+    public void oneSensorsFollowsTheGameFromTickToTick() {
+        Game game = TestGames.newGame("Rando", 4, "Standard", 5);
+        Robot self = game.getRobots().get(0);
+        Sensors sensors = null;
+        for (int tick = 0; tick < 50; tick++) {
+            // Each step, the first one included, resets it to the world as it was before anyone moved
+            Robot nearest = new Sensors(game).nearestEnemy(self);
+            game.step();
+            if (sensors == null) {
+                sensors = self.getSensors();
+            }
+            assertSame(sensors, self.getSensors());
+            assertSame(nearest, sensors.nearestEnemy(self));
+        }
+    }
+}
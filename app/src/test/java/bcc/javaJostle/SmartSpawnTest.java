@@ -0,0 +1,35 @@
+package bcc.javaJostle;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SmartSpawnTest {
+    @Test
+    public void alwaysSpawnsOnGrass() {
+        for (String mapName : new String[] { "Standard", "Maze", "Giant" }) {
+            Game game = TestGames.newGame("Rock", 8, mapName, 99);
+            Map map = game.getMap();
+            for (int i = 0; i < 200; i++) {
+                int tile = game.smartSpawn();
+                assertEquals(mapName, Utilities.GRASS, map.tileAt(tile % map.width(), tile / map.width()));
+            }
+        }
+    }
+
+    @Test
+    public void staysAwayFromRobots() {
+        Game game = TestGames.newGame("Rock", 16, "Giant", 99);
+        Map map = game.getMap();
+        for (int i = 0; i < 50; i++) {
+            int tile = game.smartSpawn();
+            double x = tile % map.width() * Utilities.TILE_SIZE + Utilities.TILE_SIZE / 2.0;
+            double y = tile / map.width() * Utilities.TILE_SIZE + Utilities.TILE_SIZE / 2.0;
+            for (Robot robot : game.getRobots()) {
+                double distance = Math.hypot(x - robot.getX() - Utilities.ROBOT_SIZE / 2.0,
+                        y - robot.getY() - Utilities.ROBOT_SIZE / 2.0);
+                assertTrue(distance > Utilities.TILE_SIZE);
+            }
+        }
+    }
+}
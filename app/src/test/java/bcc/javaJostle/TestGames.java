@@ -0,0 +1,61 @@
+package bcc.javaJostle;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Shared setup for the tests: seeded games whose thinks run on the test thread so
+ * nothing times out, and maps written out as text.
+ */
+final class TestGames {
+    private TestGames() {
+    }
+
+    // Three Randos and MyRobot, the line-up the determinism and replay tests play
+    static Game newGame(String mapName, long seed) {
+        ArrayList<String> robotNames = new ArrayList<>();
+        robotNames.add("Rando");
+        robotNames.add("Rando");
+        robotNames.add("MyRobot");
+        robotNames.add("Rando");
+        return newGame(robotNames, mapName, seed);
+    }
+
+    // robotCount copies of the same robot
+    static Game newGame(String robotName, int robotCount, String mapName, long seed) {
+        ArrayList<String> robotNames = new ArrayList<>();
+        for (int i = 0; i < robotCount; i++) {
+            robotNames.add(robotName);
+        }
+        return newGame(robotNames, mapName, seed);
+    }
+
+    static Game newGame(ArrayList<String> robotNames, String mapName, long seed) {
+        Game game = new Game(robotNames, mapName, 3000, seed);
+        game.setThinkStrategy(ThinkStrategy.DIRECT);
+        return game;
+    }
+
+    // Loads a map from text map lines, the same way a .txt map file is loaded
+    static Map parseMap(String text) throws IOException {
+        Path file = Files.createTempFile("jostle", Map.TEXT_EXTENSION);
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+            return Map.read(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // Steps the game to the end, calling afterTick after every step
+    static void play(Game game, Consumer<Game> afterTick) {
+        while (!game.isGameOver()) {
+            game.step();
+            afterTick.accept(game);
+        }
+    }
+}